@@ -13,7 +13,7 @@ export default function DoctorHandler() {
   // Fetch Doctors
   const fetchDoctors = async () => {
     try {
-      const result = await api.get("/doctors");
+      const result = await api.get("/doctors/export");
       setDoctors(
         result.map((doc) => ({
           ...doc,
@@ -52,7 +52,7 @@ export default function DoctorHandler() {
       handleCloseModal();
     } catch (err) {
       console.error("Error saving doctor:", err.message);
-      alert("Failed to save doctor.");
+      alert(err.message || "Failed to save doctor.");
     }
   };
 
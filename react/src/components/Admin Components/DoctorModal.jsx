@@ -66,6 +66,8 @@ export default function DoctorModal({ doctor, onSave, onClose }) {
         specialtyId: doctor.specialtyId || "",
         employmentStatus: doctor.employmentStatus || "ACTIVE",
         availabilities: updatedAvailabilities,
+        // Sent back so the update is rejected if someone else changed the doctor in the meantime
+        version: doctor.version,
       });
     }
   }, [doctor]);
@@ -7,25 +7,31 @@ import capitalizeAndFormat from "../../utilities/capitalizeAndFormat";
 const AppointmentHandler = () => {
   const { api } = useAppContext();
   const [appointments, setAppointments] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [isModalOpen, setModalOpen] = useState(false);
   const [selectedAppointment, setSelectedAppointment] = useState(null);
 
-  const fetchAppointments = async () => {
+  // Loads the first page, or appends the page after the given cursor
+  const fetchAppointments = async (cursor = null) => {
     try {
-      const result = await api.get("/appointments/patient");
-      setAppointments(
-        result.map((appt) => ({
-          ...appt,
-          id: appt.appointmentId,
-          appointmentDate: appt.date,
-          timeSlotId: appt.slotId,
-          visitType: capitalizeAndFormat(appt.visitType),
-          appointmentStatus: capitalizeAndFormat(appt.status),
-        }))
-      );
+      const page = await api.getPage("/appointments/patient", cursor);
+      const rows = page.items.map((appt) => ({
+        ...appt,
+        id: appt.appointmentId,
+        appointmentDate: appt.date,
+        timeSlotId: appt.slotId,
+        timeSlotStartTime: appt.startTime,
+        visitType: capitalizeAndFormat(appt.visitType),
+        appointmentStatus: capitalizeAndFormat(appt.status),
+      }));
+      setAppointments((prev) => (cursor ? [...prev, ...rows] : rows));
+      setNextCursor(page.nextCursor);
     } catch (err) {
       console.warn("Failed to fetch appointments:", err.message);
-      setAppointments([]);
+      if (!cursor) {
+        setAppointments([]);
+        setNextCursor(null);
+      }
     }
   };
 
@@ -126,6 +132,14 @@ const AppointmentHandler = () => {
           rowsPerPageOptions={[10]}
           onRowClick={(params) => {setSelectedAppointment(params.row)}}
         />
+        {nextCursor && (
+          <button
+            className="px-4 py-2 mt-4 text-white bg-blue-600 rounded"
+            onClick={() => fetchAppointments(nextCursor)}
+          >
+            Load more
+          </button>
+        )}
       </div>
 
       {isModalOpen && (
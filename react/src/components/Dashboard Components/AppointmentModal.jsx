@@ -14,6 +14,7 @@ const initialForm = {
   appointmentDate: null,
   doctorId: "",
   timeSlotId: "",
+  timeSlotStartTime: "",
   visitType: "IN_PERSON",
   specializationId: "",
   appointmentStatus: "CONFIRMED",
@@ -25,6 +26,7 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
   const [formData, setFormData] = useState(initialForm);
   const [specializations, setSpecializations] = useState([]);
   const [doctors, setDoctors] = useState([]);
+  const [doctorsCursor, setDoctorsCursor] = useState(null);
   const [timeSlots, setTimeSlots] = useState([]);
   const [loading, setLoading] = useState(true);
 
@@ -58,17 +60,34 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
     }
   }, [user]);
 
-  // Fetch Doctors
+  // Fetch Doctors, one page at a time
+  const fetchDoctors = async (cursor = null) => {
+    try {
+      const page = await api.getPage(`/doctors/specialty/${formData.specializationId}`, cursor);
+      setDoctors((prev) => {
+        const fresh = (doc) => !page.items.some((item) => item.doctorId === doc.doctorId);
+        const loaded = cursor ? [...prev.filter(fresh), ...page.items] : page.items;
+        // Keep the doctor of the appointment being edited selectable until its page is loaded
+        if (!cursor && appointment?.doctorId && appointment.specialtyId === formData.specializationId
+            && !loaded.some((doc) => doc.doctorId === appointment.doctorId)) {
+          const [firstName, ...lastName] = (appointment.doctorName || "").split(" ");
+          return [...loaded, { doctorId: appointment.doctorId, firstName, lastName: lastName.join(" ") }];
+        }
+        return loaded;
+      });
+      setDoctorsCursor(page.nextCursor);
+    } catch (err) {
+      console.error("Error fetching doctors:", err.message);
+    }
+  };
+
   useEffect(() => {
-    const fetchDoctors = async () => {
-      if (formData.specializationId) {
-        const result = await api.get(`/doctors/specialty/${formData.specializationId}`);
-        setDoctors(result);
-      } else {
-        setDoctors([]);
-      }
-    };
-    fetchDoctors();
+    if (formData.specializationId) {
+      fetchDoctors();
+    } else {
+      setDoctors([]);
+      setDoctorsCursor(null);
+    }
   }, [formData.specializationId]);
 
   // Fetch Time Slots for selected doctor and date
@@ -93,7 +112,8 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
     setFormData((prev) => ({ ...prev, [field]: value }));
     if (field === "specializationId") {
       setDoctors([]);
-      setFormData((prev) => ({ ...prev, doctorId: "", timeSlotId: "" }));
+      setDoctorsCursor(null);
+      setFormData((prev) => ({ ...prev, doctorId: "", timeSlotId: "", timeSlotStartTime: "" }));
     }
     if (field === "appointmentDate") setTimeSlots([]);
   };
@@ -154,7 +174,9 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
 
       const appointmentPayload = {
         patientId: currentPatientId,
-        slotId: formData.timeSlotId,
+        slotId: formData.timeSlotId || null,
+        date: formData.appointmentDate,
+        startTime: formData.timeSlotStartTime,
         doctorId: formData.doctorId,
         visitType: formData.visitType,
       };
@@ -253,6 +275,11 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
                 </MenuItem>
               ))}
             </TextField>
+            {doctorsCursor && (
+              <Button onClick={() => fetchDoctors(doctorsCursor)} color="primary">
+                More doctors
+              </Button>
+            )}
             <TextField
               fullWidth
               select
@@ -282,9 +309,12 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
                 {timeSlots.length > 0 ? (
                   timeSlots.map((slot) => (
                     <Button
-                      key={slot.slotId}
-                      variant={formData.timeSlotId === slot.slotId ? "contained" : "outlined"}
-                      onClick={() => handleChange("timeSlotId", slot.slotId)}
+                      key={slot.startTime}
+                      variant={formData.timeSlotStartTime === slot.startTime ? "contained" : "outlined"}
+                      onClick={() => {
+                        handleChange("timeSlotId", slot.slotId);
+                        handleChange("timeSlotStartTime", slot.startTime);
+                      }}
                       fullWidth
                     >
                       {`${slot.startTime} - ${slot.endTime}`}
@@ -303,7 +333,7 @@ export default function AppointmentModal({ appointment, onSave, onClose }) {
           <Button onClick={onClose} color="secondary">
             Cancel
           </Button>
-          <Button onClick={handleSave} color="primary" variant="contained" disabled={!formData.timeSlotId}>
+          <Button onClick={handleSave} color="primary" variant="contained" disabled={!formData.timeSlotStartTime}>
             Confirm Appointment
           </Button>
         </div>
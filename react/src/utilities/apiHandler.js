@@ -56,13 +56,27 @@ const apiHandler = async (url, method = "GET", data = null, headers = {}) => {
     throw error;
   }
 };
+/**
+ * Fetch one page of a cursor-paginated list endpoint
+ * @param {string} url - The API endpoint (relative path, may already have a query string)
+ * @param {string} [cursor=null] - The nextCursor of the previous page, null for the first page
+ * @param {Object} [headers={}] - Additional headers
+ * @returns {Promise<{items: Array, nextCursor: string|null}>} - The page
+ */
+const fetchPage = (url, cursor = null, headers = {}) => {
+  const separator = url.includes("?") ? "&" : "?";
+  const pageUrl = cursor ? `${url}${separator}cursor=${encodeURIComponent(cursor)}` : url;
+  return apiHandler(pageUrl, "GET", null, headers);
+};
+
 /**
  * Create API instance
  * @param {Function} [getUser] - Optional callback for user validation
- * @returns {Object} API instance with get, post, put, delete methods
+ * @returns {Object} API instance with get, getPage, post, put, delete methods
  */
 export const createApi = (getUser = null) => ({
   get: (url, headers) => apiHandler(url, "GET", null, headers, getUser),
+  getPage: (url, cursor, headers) => fetchPage(url, cursor, headers),
   post: (url, data, headers) => apiHandler(url, "POST", data, headers, getUser),
   put: (url, data, headers) => apiHandler(url, "PUT", data, headers, getUser),
   delete: (url, headers) => apiHandler(url, "DELETE", null, headers, getUser),
@@ -0,0 +1,42 @@
+package york.medical.configuration;
+
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+
+// Okta ID of the signed-in user, from a browser login session or from a bearer JWT
+public final class AuthenticatedUser {
+
+    // Okta sends the user's groups in this claim, the same one the login redirect in AuthController looks at
+    private static final String GROUPS_CLAIM = "groups";
+    private static final String ADMIN_GROUP = "Admin";
+
+    private AuthenticatedUser() {
+    }
+
+    public static String oktaId(Authentication authentication) {
+        Object principal = authentication != null ? authentication.getPrincipal() : null;
+        if (principal instanceof OAuth2User user && user.getAttribute("sub") != null) {
+            return user.getAttribute("sub");
+        }
+        // Named after the configured user ID claim, see JwtResourceServerConfig; a token without it has no user
+        if (principal instanceof Jwt && authentication.getName() != null) {
+            return authentication.getName();
+        }
+        throw new AuthenticationCredentialsNotFoundException("You must be signed in to access this resource.");
+    }
+
+    public static boolean isAdmin(Authentication authentication) {
+        Object principal = authentication != null ? authentication.getPrincipal() : null;
+        Object groups = null;
+        if (principal instanceof OAuth2User user) {
+            groups = user.getAttribute(GROUPS_CLAIM);
+        } else if (principal instanceof Jwt jwt) {
+            groups = jwt.getClaim(GROUPS_CLAIM);
+        }
+        return groups instanceof Collection<?> names && names.contains(ADMIN_GROUP);
+    }
+}
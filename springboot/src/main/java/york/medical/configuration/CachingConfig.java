@@ -0,0 +1,19 @@
+package york.medical.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// The caches are Caffeine caches set up in application.properties (spring.cache.*).
+// Caching runs outside the transactions, so a read served from the cache never opens one
+// and write evictions happen after the commit.
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CachingConfig {
+
+    public static final String SPECIALTIES = "specialties";
+    public static final String SPECIALTY = "specialty";
+    public static final String DOCTOR_DIRECTORY = "doctorDirectory";
+    public static final String DOCTOR = "doctor";
+    public static final String PATIENT_ID = "patientId";
+}
@@ -0,0 +1,5 @@
+package york.medical.configuration;
+
+// The patient behind the authenticated user, resolved once per request by CurrentPatientArgumentResolver
+public record CurrentPatient(String oktaId, Long patientId) {
+}
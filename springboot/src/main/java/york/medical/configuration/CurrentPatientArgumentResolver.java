@@ -0,0 +1,50 @@
+package york.medical.configuration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import york.medical.exceptions.ResourceNotFoundException;
+import york.medical.services.UserService;
+
+// Turns the signed-in user's Okta ID into their patient ID for controller parameters of type CurrentPatient.
+// The lookup goes through the patient ID cache and its result is kept on the request.
+@Component
+public class CurrentPatientArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentPatient.class.getName();
+
+    private final UserService userService;
+
+    @Autowired
+    public CurrentPatientArgumentResolver(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CurrentPatient.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public CurrentPatient resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                          NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        CurrentPatient resolved = (CurrentPatient) webRequest.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved != null) {
+            return resolved;
+        }
+
+        String oktaId = AuthenticatedUser.oktaId(SecurityContextHolder.getContext().getAuthentication());
+        Long patientId = userService.findPatientId(oktaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient not found for Okta ID: " + oktaId));
+
+        resolved = new CurrentPatient(oktaId, patientId);
+        webRequest.setAttribute(REQUEST_ATTRIBUTE, resolved, RequestAttributes.SCOPE_REQUEST);
+        return resolved;
+    }
+}
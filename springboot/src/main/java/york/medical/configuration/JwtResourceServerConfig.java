@@ -0,0 +1,85 @@
+package york.medical.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Stateless API access with bearer JWTs, so any node can serve any request without a shared session.
+// Only requests carrying an "Authorization: Bearer" header are handled here; everything else keeps
+// going through the session based login in SecurityConfig.
+@Configuration
+@ConditionalOnProperty(name = "medical.security.jwt.enabled", havingValue = "true")
+public class JwtResourceServerConfig {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain bearerFilterChain(HttpSecurity http, JwtDecoder jwtDecoder,
+                                                 @Value("${medical.security.jwt.user-id-claim:uid}") String userIdClaim) throws Exception {
+        http.securityMatcher(request -> {
+            String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+            return authorization != null && authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length());
+        });
+        http.authorizeHttpRequests(auth -> auth
+                .requestMatchers(SecurityConfig.ADMIN_PATHS).access(SecurityConfig.adminOnly())
+                .anyRequest().authenticated());
+        http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        // No cookies are involved, so there is nothing for CSRF protection to guard
+        http.csrf(csrf -> csrf.disable());
+        http.requestCache(cache -> cache.disable());
+        // The authentication is named after the Okta user ID, which AuthenticatedUser hands to the services
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setPrincipalClaimName(userIdClaim);
+        http.oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt
+                .decoder(jwtDecoder)
+                .jwtAuthenticationConverter(authenticationConverter)));
+        return http.build();
+    }
+
+    // Signing keys are fetched from the JWKS endpoint and kept in memory, so validating a token
+    // is a local signature check; an unknown key ID triggers a refetch
+    @Bean
+    public JwtDecoder jwtDecoder(@Value("${medical.security.jwt.jwk-set-uri}") String jwkSetUri,
+                                 @Value("${medical.security.jwt.issuer:}") String issuer,
+                                 @Value("${medical.security.jwt.audience:}") String audience,
+                                 @Value("${medical.security.jwt.jwks-cache-minutes:15}") long jwksCacheMinutes) {
+        CaffeineCache jwksCache = new CaffeineCache("jwks", Caffeine.newBuilder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMinutes(jwksCacheMinutes))
+                .build());
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUri).cache(jwksCache).build();
+
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(StringUtils.hasText(issuer) ? JwtValidators.createDefaultWithIssuer(issuer) : JwtValidators.createDefault());
+        if (StringUtils.hasText(audience)) {
+            validators.add(new JwtClaimValidator<Collection<String>>(JwtClaimNames.AUD,
+                    aud -> aud != null && aud.contains(audience)));
+        }
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(validators));
+        return decoder;
+    }
+}
@@ -3,8 +3,12 @@ package york.medical.configuration;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
@@ -14,10 +18,16 @@ import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 @Configuration
 public class SecurityConfig {
 
+    // Bulk exports of every appointment or doctor, for the admin pages only
+    static final String[] ADMIN_PATHS = {"/api/appointments/export", "/api/doctors/export"};
+
+    // Browser sessions through the Okta login; bearer token requests are matched first by JwtResourceServerConfig
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
         http.authorizeHttpRequests((auth) -> auth
+                .requestMatchers(ADMIN_PATHS).access(adminOnly())
                 .requestMatchers("/", "/api/**", "/oauth2/authorization/okta", "/login/oauth2/code/okta", "/api/logout").permitAll()
                 .anyRequest().authenticated()
         );
@@ -35,4 +45,7 @@ public class SecurityConfig {
         return http.build();
     }
 
-}
\ No newline at end of file
+    static AuthorizationManager<RequestAuthorizationContext> adminOnly() {
+        return (authentication, context) -> new AuthorizationDecision(AuthenticatedUser.isAdmin(authentication.get()));
+    }
+}
@@ -0,0 +1,24 @@
+package york.medical.configuration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CurrentPatientArgumentResolver currentPatientArgumentResolver;
+
+    @Autowired
+    public WebConfig(CurrentPatientArgumentResolver currentPatientArgumentResolver) {
+        this.currentPatientArgumentResolver = currentPatientArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentPatientArgumentResolver);
+    }
+}
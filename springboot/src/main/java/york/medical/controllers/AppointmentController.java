@@ -1,29 +1,52 @@
 package york.medical.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import york.medical.configuration.CurrentPatient;
 import york.medical.dtos.requests.AppointmentAvailableRequest;
 import york.medical.dtos.requests.AppointmentRequest;
+import york.medical.dtos.requests.HoldConfirmRequest;
+import york.medical.dtos.requests.NextAvailableRequest;
+import york.medical.dtos.requests.SeriesBookingRequest;
+import york.medical.dtos.requests.SlotHoldRequest;
 import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.dtos.responses.CursorPage;
+import york.medical.dtos.responses.SeriesBookingResponse;
+import york.medical.dtos.responses.SlotHoldResponse;
 import york.medical.dtos.responses.SlotResponse;
+import york.medical.enums.AppointmentStatus;
+import york.medical.repositories.ChangeStamp;
 import york.medical.services.AppointmentService;
+import york.medical.services.IdempotencyStore;
 
+import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/appointments")
 public class AppointmentController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final AppointmentService appointmentService;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, IdempotencyStore idempotencyStore,
+                                 ObjectMapper objectMapper) {
         this.appointmentService = appointmentService;
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
     }
 
     // Fetch Available Slots
@@ -34,33 +57,101 @@ public class AppointmentController {
         return new ResponseEntity<>(slots, HttpStatus.OK);
     }
 
-    // Get Appointments by Okta ID
+    // Earliest free slots across all active doctors of a specialty
+    @PostMapping("/available/next")
+    public ResponseEntity<List<SlotResponse>> findNextAvailableSlots(@Valid @RequestBody NextAvailableRequest request) {
+        List<SlotResponse> slots = appointmentService.findNextAvailableSlots(request);
+        return new ResponseEntity<>(slots, HttpStatus.OK);
+    }
+
+    // Get a page of the signed-in patient's Appointments
     @GetMapping("/patient")
-    public ResponseEntity<List<AppointmentResponse>> getAppointmentsByOktaId(@AuthenticationPrincipal OAuth2User user) {
-        String oktaId = (String) user.getAttributes().get("sub");
-        List<AppointmentResponse> appointments = appointmentService.getAllAppointmentsByOktaId(oktaId);
-        return ResponseEntity.ok(appointments);
+    public ResponseEntity<CursorPage<AppointmentResponse>> getPatientAppointments(
+            CurrentPatient patient,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        ChangeStamp stamp = appointmentService.getAppointmentsStamp(patient.patientId());
+        if (webRequest.checkNotModified(stamp.etag(patient.patientId(), status, from, to, cursor, size), stamp.lastModifiedMillis())) {
+            return null;
+        }
+        CursorPage<AppointmentResponse> appointments = appointmentService.getAppointmentsByPatientId(
+                patient.patientId(), status, from, to, cursor, size);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(appointments);
+    }
+
+    // Stream every appointment as one JSON array, for the admin pages
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return JsonArrayStream.of(objectMapper, sink -> appointmentService.exportAppointments(status, from, to, sink));
     }
 
     // Create Appointment
     @PostMapping
-    public ResponseEntity<AppointmentResponse> createAppointment(@Valid @RequestBody AppointmentRequest request) {
-        AppointmentResponse response = appointmentService.createAppointment(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public ResponseEntity<AppointmentResponse> createAppointment(@Valid @RequestBody AppointmentRequest request,
+                                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                 Principal principal) {
+        return idempotencyStore.execute(idempotencyKey, principal, "create", request, () -> {
+            AppointmentResponse response = appointmentService.createAppointment(request);
+            return new ResponseEntity<>(response, HttpStatus.CREATED);
+        });
     }
 
     // Update Appointment
     @PutMapping("/{appointmentId}")
     public ResponseEntity<AppointmentResponse> updateAppointment(@PathVariable Long appointmentId,
-                                                                 @Valid @RequestBody AppointmentRequest request) {
-        AppointmentResponse response = appointmentService.updateAppointment(appointmentId, request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+                                                                 @Valid @RequestBody AppointmentRequest request,
+                                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                 Principal principal) {
+        return idempotencyStore.execute(idempotencyKey, principal, "update:" + appointmentId, request, () -> {
+            AppointmentResponse response = appointmentService.updateAppointment(appointmentId, request);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        });
+    }
+
+    // Book a weekly series, responds with the per-week availability when it cannot be booked as a whole
+    @PostMapping("/series")
+    public ResponseEntity<SeriesBookingResponse> bookSeries(@Valid @RequestBody SeriesBookingRequest request) {
+        SeriesBookingResponse response = appointmentService.bookSeries(request);
+        return new ResponseEntity<>(response, response.isBooked() ? HttpStatus.CREATED : HttpStatus.CONFLICT);
+    }
+
+    // Hold a slot while the signed-in patient finishes booking; holds always belong to the session's patient
+    @PostMapping("/holds")
+    public ResponseEntity<SlotHoldResponse> holdSlot(CurrentPatient patient, @Valid @RequestBody SlotHoldRequest request) {
+        SlotHoldResponse response = appointmentService.holdSlot(patient.patientId(), request);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    // Confirm a held slot as an appointment
+    @PostMapping("/holds/{slotId}/confirm")
+    public ResponseEntity<AppointmentResponse> confirmHold(@PathVariable Long slotId, CurrentPatient patient,
+                                                           @Valid @RequestBody HoldConfirmRequest request) {
+        AppointmentResponse response = appointmentService.confirmHold(slotId, patient.patientId(), request);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    // Release a held slot
+    @DeleteMapping("/holds/{slotId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable Long slotId, CurrentPatient patient) {
+        appointmentService.releaseHold(slotId, patient.patientId());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     // Cancel Appointment
     @DeleteMapping("/{appointmentId}")
-    public ResponseEntity<Void> cancelAppointment(@PathVariable Long appointmentId) {
-        appointmentService.cancelAppointment(appointmentId);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public ResponseEntity<Void> cancelAppointment(@PathVariable Long appointmentId,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                  Principal principal) {
+        return idempotencyStore.execute(idempotencyKey, principal, "cancel:" + appointmentId, appointmentId, () -> {
+            appointmentService.cancelAppointment(appointmentId);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        });
     }
 }
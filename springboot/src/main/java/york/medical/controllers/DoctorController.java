@@ -1,16 +1,24 @@
 package york.medical.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import york.medical.dtos.requests.DoctorRequest;
+import york.medical.dtos.responses.CursorPage;
 import york.medical.dtos.responses.DoctorResponse;
+import york.medical.dtos.responses.SlotHorizonRunResponse;
+import york.medical.enums.EmploymentStatus;
+import york.medical.repositories.ChangeStamp;
 import york.medical.services.DoctorService;
+import york.medical.services.SlotHorizonService;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/doctors")
@@ -18,31 +26,61 @@ import java.util.List;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final SlotHorizonService slotHorizonService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public DoctorController(DoctorService doctorService) {
+    public DoctorController(DoctorService doctorService, SlotHorizonService slotHorizonService, ObjectMapper objectMapper) {
         this.doctorService = doctorService;
+        this.slotHorizonService = slotHorizonService;
+        this.objectMapper = objectMapper;
     }
 
-    // Fetch all doctors
+    // Fetch a page of doctors
     @GetMapping
-    public ResponseEntity<List<DoctorResponse>> getAllDoctors() {
-        List<DoctorResponse> doctors = doctorService.getAllDoctors();
-        return new ResponseEntity<>(doctors, HttpStatus.OK);
+    public ResponseEntity<CursorPage<DoctorResponse>> getAllDoctors(@RequestParam(required = false) Long specialtyId,
+                                                                    @RequestParam(required = false) EmploymentStatus status,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer size,
+                                                                    WebRequest webRequest) {
+        ChangeStamp stamp = doctorService.getDirectoryStamp();
+        if (webRequest.checkNotModified(stamp.etag("all", specialtyId, status, cursor, size), stamp.lastModifiedMillis())) {
+            return null;
+        }
+        CursorPage<DoctorResponse> doctors = doctorService.getDoctors(specialtyId, status, cursor, size);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(doctors);
+    }
+
+    // Stream every doctor as one JSON array, for the admin pages
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDoctors(@RequestParam(required = false) Long specialtyId,
+                                                               @RequestParam(required = false) EmploymentStatus status) {
+        return JsonArrayStream.of(objectMapper, sink -> doctorService.exportDoctors(specialtyId, status, sink));
     }
 
     // Fetch a doctor by ID
     @GetMapping("/{id}")
-    public ResponseEntity<DoctorResponse> getDoctorById(@PathVariable Long id) {
+    public ResponseEntity<DoctorResponse> getDoctorById(@PathVariable Long id, WebRequest webRequest) {
+        ChangeStamp stamp = doctorService.getDirectoryStamp();
+        if (webRequest.checkNotModified(stamp.etag("doctor", id), stamp.lastModifiedMillis())) {
+            return null;
+        }
         DoctorResponse doctor = doctorService.getDoctorById(id);
-        return new ResponseEntity<>(doctor, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(doctor);
     }
 
     // Fetch doctors by Specialty ID
     @GetMapping("/specialty/{id}")
-    public ResponseEntity<List<DoctorResponse>> getDoctorsBySpecialtyId(@PathVariable("id") Long specialtyId) {
-        List<DoctorResponse> doctors = doctorService.getDoctorsBySpecialtyId(specialtyId);
-        return ResponseEntity.ok(doctors);
+    public ResponseEntity<CursorPage<DoctorResponse>> getDoctorsBySpecialtyId(@PathVariable("id") Long specialtyId,
+                                                                              @RequestParam(required = false) String cursor,
+                                                                              @RequestParam(required = false) Integer size,
+                                                                              WebRequest webRequest) {
+        ChangeStamp stamp = doctorService.getDirectoryStamp();
+        if (webRequest.checkNotModified(stamp.etag("specialty", specialtyId, cursor, size), stamp.lastModifiedMillis())) {
+            return null;
+        }
+        CursorPage<DoctorResponse> doctors = doctorService.getDoctorsBySpecialtyId(specialtyId, cursor, size);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(doctors);
     }
 
     // Create a new doctor with availability
@@ -65,4 +103,11 @@ public class DoctorController {
         doctorService.deleteDoctor(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    // Last run of the nightly slot horizon job
+    @GetMapping("/slots/horizon")
+    public ResponseEntity<SlotHorizonRunResponse> getLastSlotHorizonRun() {
+        SlotHorizonRunResponse lastRun = slotHorizonService.getLastRun();
+        return lastRun != null ? ResponseEntity.ok(lastRun) : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
 }
@@ -1,10 +1,13 @@
 package york.medical.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import york.medical.entities.Specialty;
+import york.medical.repositories.ChangeStamp;
 import york.medical.services.SpecialtyService;
 
 import jakarta.validation.Valid;
@@ -23,16 +26,24 @@ public class SpecialtyController {
 
     // Fetch all specialties
     @GetMapping
-    public ResponseEntity<List<Specialty>> getAllSpecialties() {
+    public ResponseEntity<List<Specialty>> getAllSpecialties(WebRequest webRequest) {
+        ChangeStamp stamp = specialtyService.getChangeStamp();
+        if (webRequest.checkNotModified(stamp.etag("all"), stamp.lastModifiedMillis())) {
+            return null;
+        }
         List<Specialty> specialties = specialtyService.getAllSpecialties();
-        return new ResponseEntity<>(specialties, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(specialties);
     }
 
     // Fetch a specialty by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Specialty> getSpecialtyById(@PathVariable Long id) {
+    public ResponseEntity<Specialty> getSpecialtyById(@PathVariable Long id, WebRequest webRequest) {
+        ChangeStamp stamp = specialtyService.getChangeStamp();
+        if (webRequest.checkNotModified(stamp.etag("specialty", id), stamp.lastModifiedMillis())) {
+            return null;
+        }
         Specialty specialty = specialtyService.getSpecialtyById(id);
-        return new ResponseEntity<>(specialty, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(specialty);
     }
 
     // Create a new specialty
@@ -1,24 +1,36 @@
 package york.medical.dtos.requests;
 
 
+import jakarta.validation.constraints.AssertTrue;
 import lombok.Data;
 import york.medical.enums.SlotStatus;
 
 import jakarta.validation.constraints.NotNull;
 import york.medical.enums.VisitType;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @Data
 public class AppointmentRequest {
     @NotNull(message = "Patient ID must be provided.")
     private Long patientId;
 
-    @NotNull(message = "Slot ID must be provided.")
+    // Either a stored slot or, for virtual slots, its date and start time
     private Long slotId;
 
+    private LocalDate date;
+
+    private LocalTime startTime;
+
     @NotNull(message = "Doctor ID must be provided.")
     private Long doctorId;
 
     @NotNull(message = "visitType must be provided")
     private VisitType visitType;
 
+    @AssertTrue(message = "Slot ID or date and start time must be provided.")
+    public boolean isSlotReferenced() {
+        return slotId != null || (date != null && startTime != null);
+    }
 }
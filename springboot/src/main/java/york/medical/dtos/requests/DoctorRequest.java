@@ -26,6 +26,11 @@ public class DoctorRequest {
     @Nullable
     private EmploymentStatus employmentStatus = null;
 
+    // Version the client last read, required on updates; they are rejected if the doctor changed since.
+    // Not validated here because creating a doctor uses the same request
+    @Nullable
+    private Long version = null;
+
     @Data
     public static class AvailabilityRequest {
         @NotNull(message = "dayOfWeek must be provided.")
@@ -0,0 +1,11 @@
+package york.medical.dtos.requests;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import york.medical.enums.VisitType;
+
+@Data
+public class HoldConfirmRequest {
+    @NotNull(message = "visitType must be provided")
+    private VisitType visitType;
+}
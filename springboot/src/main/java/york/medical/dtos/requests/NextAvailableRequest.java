@@ -0,0 +1,33 @@
+package york.medical.dtos.requests;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class NextAvailableRequest {
+
+    @NotNull(message = "Specialty ID is required.")
+    private Long specialtyId;
+
+    @NotNull(message = "Start date is required.")
+    @FutureOrPresent(message = "Cannot display past appointment availabilities.")
+    private LocalDate from;
+
+    @NotNull(message = "End date is required.")
+    private LocalDate to;
+
+    @Min(value = 1, message = "Limit must be at least 1.")
+    @Max(value = 100, message = "Limit must be at most 100.")
+    private int limit = 10;
+
+    @AssertTrue(message = "End date must not be before the start date.")
+    public boolean isRangeValid() {
+        return from == null || to == null || !to.isBefore(from);
+    }
+}
@@ -0,0 +1,38 @@
+package york.medical.dtos.requests;
+
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import york.medical.enums.VisitType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+public class SeriesBookingRequest {
+    @NotNull(message = "Patient ID must be provided.")
+    private Long patientId;
+
+    @NotNull(message = "Doctor ID must be provided.")
+    private Long doctorId;
+
+    @NotNull(message = "Start date must be provided.")
+    @FutureOrPresent(message = "Cannot book appointments in the past.")
+    private LocalDate startDate;
+
+    @NotNull(message = "Start time must be provided.")
+    private LocalTime startTime;
+
+    @NotNull(message = "Count must be provided.")
+    @Min(value = 1, message = "Count must be at least 1.")
+    @Max(value = 52, message = "Count must be at most 52.")
+    private Integer count;
+
+    @Min(value = 1, message = "Interval must be at least 1 week.")
+    private int intervalWeeks = 1;
+
+    @NotNull(message = "visitType must be provided")
+    private VisitType visitType;
+}
@@ -0,0 +1,26 @@
+package york.medical.dtos.requests;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+public class SlotHoldRequest {
+    @NotNull(message = "Doctor ID must be provided.")
+    private Long doctorId;
+
+    // Either a stored slot or, for virtual slots, its date and start time
+    private Long slotId;
+
+    private LocalDate date;
+
+    private LocalTime startTime;
+
+    @AssertTrue(message = "Slot ID or date and start time must be provided.")
+    public boolean isSlotReferenced() {
+        return slotId != null || (date != null && startTime != null);
+    }
+}
@@ -1,6 +1,7 @@
 package york.medical.dtos.responses;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import york.medical.enums.AppointmentStatus;
 import york.medical.enums.VisitType;
 
@@ -8,6 +9,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Data
+@NoArgsConstructor
 public class AppointmentResponse {
     private Long appointmentId;
     private Long patientId;
@@ -23,4 +25,28 @@ public class AppointmentResponse {
     private LocalTime endTime;
     private AppointmentStatus status;
     private VisitType visitType;
+    // The appointment this one replaced when it was rescheduled
+    private Long rescheduledFromId;
+
+    // Used by the JPQL constructor projections in AppointmentRepository
+    public AppointmentResponse(Long appointmentId, Long patientId, String patientFirstName, String patientLastName,
+                               Long doctorId, Long specialtyId, String doctorFirstName, String doctorLastName,
+                               LocalDate date, Long slotId, LocalTime startTime, LocalTime endTime,
+                               AppointmentStatus status, VisitType visitType, Long rescheduledFromId) {
+        this.appointmentId = appointmentId;
+        this.patientId = patientId;
+        this.patientName = patientFirstName + " " + patientLastName;
+        this.patientFirstName = patientFirstName;
+        this.patientLastName = patientLastName;
+        this.doctorId = doctorId;
+        this.specialtyId = specialtyId;
+        this.doctorName = doctorFirstName + " " + doctorLastName;
+        this.date = date;
+        this.slotId = slotId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+        this.visitType = visitType;
+        this.rescheduledFromId = rescheduledFromId;
+    }
 }
@@ -16,6 +16,7 @@ public class DoctorResponse {
     private Long specialtyId;
     private List<AvailabilityResponse> availabilities;
     private EmploymentStatus employmentStatus;
+    private Long version;
 
     @Data
     public static class AvailabilityResponse {
@@ -0,0 +1,23 @@
+package york.medical.dtos.responses;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+public class SeriesBookingResponse {
+    private boolean booked;
+    private List<OccurrenceResponse> occurrences;
+    private List<AppointmentResponse> appointments;
+
+    @Data
+    public static class OccurrenceResponse {
+        private LocalDate date;
+        private LocalTime startTime;
+        private Long slotId;
+        private boolean available;
+        private String reason;
+    }
+}
@@ -0,0 +1,18 @@
+package york.medical.dtos.responses;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+public class SlotHoldResponse {
+    private Long slotId;
+    private Long patientId;
+    private Long doctorId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,17 @@
+package york.medical.dtos.responses;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+public class SlotHorizonRunResponse {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMillis;
+    private LocalDate horizonEnd;
+    private Long resumedAfterDoctorId;
+    private long doctorsProcessed;
+    private long slotsGenerated;
+}
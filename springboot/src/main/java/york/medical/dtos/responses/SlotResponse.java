@@ -1,12 +1,14 @@
 package york.medical.dtos.responses;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import york.medical.enums.SlotStatus;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Data
+@NoArgsConstructor
 public class SlotResponse {
     private Long slotId;
     private Long doctorId;
@@ -15,4 +17,16 @@ public class SlotResponse {
     private LocalTime startTime;
     private LocalTime endTime;
     private SlotStatus status;
+
+    // Used by the JPQL constructor projections in AppointmentSlotRepository
+    public SlotResponse(Long slotId, Long doctorId, String doctorFirstName, String doctorLastName,
+                        LocalDate date, LocalTime startTime, LocalTime endTime, SlotStatus status) {
+        this.slotId = slotId;
+        this.doctorId = doctorId;
+        this.doctorName = doctorFirstName + " " + doctorLastName;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+    }
 }
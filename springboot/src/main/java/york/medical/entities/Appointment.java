@@ -1,6 +1,9 @@
 package york.medical.entities;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import york.medical.enums.AppointmentStatus;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -9,26 +12,44 @@ import york.medical.enums.VisitType;
 import java.time.LocalDate;
 
 @Entity
+// At most one active appointment per patient, doctor and day; cancelled ones drop out through a null active date
+@Table(uniqueConstraints = @UniqueConstraint(name = Appointment.ACTIVE_DAY_CONSTRAINT,
+        columnNames = {"patient_id", "doctor_id", "active_date"}))
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Appointment extends Base {
 
+    public static final String ACTIVE_DAY_CONSTRAINT = "uk_appointment_active_day";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long appointmentId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "slot_id", nullable = true, unique = true)
     private AppointmentSlot slot;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
+    // The appointment this one replaced when it was rescheduled
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @JoinColumn(name = "rescheduled_from_id")
+    private Appointment rescheduledFrom;
+
     @Column(nullable = false)
     private LocalDate date;
 
@@ -39,4 +60,18 @@ public class Appointment extends Base {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private AppointmentStatus status = AppointmentStatus.CONFIRMED;
+
+    // Same as date while the appointment is active, null once it is cancelled
+    @Setter(AccessLevel.NONE)
+    private LocalDate activeDate;
+
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    @PrePersist
+    @PreUpdate
+    void syncActiveDate() {
+        activeDate = status == AppointmentStatus.CANCELLED ? null : date;
+    }
 }
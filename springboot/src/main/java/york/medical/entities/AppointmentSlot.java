@@ -1,23 +1,32 @@
 package york.medical.entities;
 
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import york.medical.enums.SlotStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
+// One slot per doctor, day and start time; the other indexes are declared in the db/migration scripts
+@Table(uniqueConstraints = @UniqueConstraint(name = AppointmentSlot.DOCTOR_START_CONSTRAINT,
+        columnNames = {"doctor_id", "date", "start_time"}))
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class AppointmentSlot extends Base {
 
+    public static final String DOCTOR_START_CONSTRAINT = "uk_slot_doctor_date_start";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long slotId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
@@ -33,4 +42,13 @@ public class AppointmentSlot extends Base {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private SlotStatus status = SlotStatus.AVAILABLE;
+
+    // Patient holding the slot while it is PENDING, and when that hold lapses
+    private Long heldByPatientId;
+
+    private LocalDateTime holdExpiresAt;
+
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
 }
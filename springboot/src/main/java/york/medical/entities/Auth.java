@@ -1,11 +1,13 @@
 package york.medical.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.EqualsAndHashCode;
 import york.medical.enums.Role;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "Auth")
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -3,6 +3,7 @@ package york.medical.entities;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import york.medical.enums.EmploymentStatus;
 import york.medical.enums.VisitType;
 
@@ -21,7 +22,9 @@ public class Doctor extends Base {
     @Column(nullable = false)
     private String lastName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "specialty_id", nullable = false)
     private Specialty specialty;
 
@@ -29,5 +32,9 @@ public class Doctor extends Base {
     @Column(nullable = false)
     private EmploymentStatus employmentStatus;
 
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
 
 }
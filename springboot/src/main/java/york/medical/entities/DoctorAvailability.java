@@ -1,6 +1,7 @@
 package york.medical.entities;
 
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import york.medical.enums.DayOfWeek;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -16,7 +17,9 @@ public class DoctorAvailability extends Base {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long availabilityId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
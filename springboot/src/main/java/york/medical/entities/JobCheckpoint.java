@@ -0,0 +1,35 @@
+package york.medical.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress of a background job, so an interrupted run can resume where it stopped
+@Entity
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class JobCheckpoint extends Base {
+
+    @Id
+    private String jobName;
+
+    @Column(nullable = false)
+    private Long lastProcessedId = 0L;
+
+    @Column(nullable = false)
+    private long itemsProcessed = 0;
+
+    @Column(nullable = false)
+    private boolean completed = true;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    // Last day the run generates slots for; a run for another day starts over
+    private LocalDate horizonEnd;
+}
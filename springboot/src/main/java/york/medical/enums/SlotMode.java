@@ -0,0 +1,6 @@
+package york.medical.enums;
+
+public enum SlotMode {
+    MATERIALIZED,
+    VIRTUAL
+}
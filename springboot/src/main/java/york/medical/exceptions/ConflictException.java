@@ -0,0 +1,10 @@
+package york.medical.exceptions;
+
+
+// Custom exception to handle requests that lost a race for the same resource.
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
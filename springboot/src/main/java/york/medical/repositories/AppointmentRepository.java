@@ -1,18 +1,73 @@
 package york.medical.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import york.medical.dtos.responses.AppointmentResponse;
 import york.medical.entities.Appointment;
 import york.medical.enums.AppointmentStatus;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
     List<Appointment> findByPatient_PatientId(Long patientId);
+
+    // Cancelling only touches the appointment and its slot
+    @EntityGraph(attributePaths = "slot")
+    Optional<Appointment> findWithSlotByAppointmentId(Long appointmentId);
+
+    // Rescheduling also maps the patient and doctor into the response
+    @EntityGraph(attributePaths = {"slot", "patient", "doctor", "doctor.specialty"})
+    Optional<Appointment> findForRescheduleByAppointmentId(Long appointmentId);
+
     List<Appointment> findByStatus(AppointmentStatus status);
 
-    Optional<Object> findByPatient_PatientIdAndDoctor_DoctorIdAndDateAndStatusNot(Long patientId, Long doctorId, LocalDate date, AppointmentStatus appointmentStatus);
+    // Columns of an AppointmentResponse, read without loading any entity
+    String RESPONSE_PROJECTION = "select new york.medical.dtos.responses.AppointmentResponse(" +
+            "a.appointmentId, p.patientId, p.firstName, p.lastName, d.doctorId, sp.specialtyId, d.firstName, d.lastName, " +
+            "a.date, s.slotId, s.startTime, s.endTime, a.status, a.visitType, rf.appointmentId) " +
+            "from Appointment a join a.patient p join a.doctor d join d.specialty sp left join a.slot s " +
+            "left join a.rescheduledFrom rf ";
+
+    @Query(RESPONSE_PROJECTION + "where p.patientId = :patientId order by a.date desc, a.appointmentId desc")
+    List<AppointmentResponse> findResponsesByPatientId(@Param("patientId") Long patientId);
+
+    // Keyset page of a patient's appointments, newest first; the cursor is the (date, id) of the last row seen
+    @Query(RESPONSE_PROJECTION + "where p.patientId = :patientId " +
+            "and (:status is null or a.status = :status) " +
+            "and (:from is null or a.date >= :from) " +
+            "and (:to is null or a.date <= :to) " +
+            "and (:cursorDate is null or a.date < :cursorDate or (a.date = :cursorDate and a.appointmentId < :cursorId)) " +
+            "order by a.date desc, a.appointmentId desc")
+    List<AppointmentResponse> findPatientPage(@Param("patientId") Long patientId, @Param("status") AppointmentStatus status,
+                                              @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                              @Param("cursorDate") LocalDate cursorDate, @Param("cursorId") Long cursorId,
+                                              Pageable pageable);
+
+    // Every appointment in (date, id) order, read through a cursor for the streamed admin export
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(RESPONSE_PROJECTION + "where (:status is null or a.status = :status) " +
+            "and (:from is null or a.date >= :from) " +
+            "and (:to is null or a.date <= :to) " +
+            "order by a.date asc, a.appointmentId asc")
+    Stream<AppointmentResponse> streamResponses(@Param("status") AppointmentStatus status,
+                                                @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<Appointment> findByPatient_PatientIdAndDoctor_DoctorIdAndDateInAndStatusNot(Long patientId, Long doctorId, Collection<LocalDate> dates, AppointmentStatus appointmentStatus);
 
     long countByStatusNot(AppointmentStatus appointmentStatus);
+
+    @Query("select new york.medical.repositories.ChangeStamp(count(a), max(a.updatedAt)) from Appointment a " +
+            "where a.patient.patientId = :patientId")
+    ChangeStamp findChangeStampByPatientId(@Param("patientId") Long patientId);
 }
@@ -1,18 +1,113 @@
 package york.medical.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import york.medical.dtos.responses.SlotResponse;
 import york.medical.entities.AppointmentSlot;
+import york.medical.enums.EmploymentStatus;
 import york.medical.enums.SlotStatus;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, Long> {
     List<AppointmentSlot> findByDoctor_DoctorIdAndDate(Long doctorId, LocalDate date);
     List<AppointmentSlot> findByDoctor_DoctorIdAndDateAndStatus(Long doctorId, LocalDate date, SlotStatus status);
 
+    // Columns of a SlotResponse, read without loading any entity
+    @Query("select new york.medical.dtos.responses.SlotResponse(s.slotId, d.doctorId, d.firstName, d.lastName, " +
+            "s.date, s.startTime, s.endTime, s.status) " +
+            "from AppointmentSlot s join s.doctor d " +
+            "where d.doctorId = :doctorId and s.date = :date and s.status = :status order by s.startTime")
+    List<SlotResponse> findResponsesByDoctorAndDateAndStatus(@Param("doctorId") Long doctorId, @Param("date") LocalDate date,
+                                                             @Param("status") SlotStatus status);
+
+    // Earliest slots in a status across the active doctors of a specialty; walks idx_slot_status_date_time in order
+    @Query("select new york.medical.dtos.responses.SlotResponse(s.slotId, d.doctorId, d.firstName, d.lastName, " +
+            "s.date, s.startTime, s.endTime, s.status) " +
+            "from AppointmentSlot s join s.doctor d " +
+            "where s.status = :status and s.date between :from and :to " +
+            "and d.specialty.specialtyId = :specialtyId and d.employmentStatus = :employmentStatus " +
+            "order by s.date, s.startTime, d.doctorId")
+    List<SlotResponse> findEarliestBySpecialty(@Param("specialtyId") Long specialtyId,
+                                               @Param("employmentStatus") EmploymentStatus employmentStatus,
+                                               @Param("status") SlotStatus status,
+                                               @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                               Pageable pageable);
+
+    List<AppointmentSlot> findByDoctor_DoctorIdInAndDateBetween(Collection<Long> doctorIds, LocalDate from, LocalDate to);
+
+    List<AppointmentSlot> findByDoctor_DoctorIdAndDateBetween(Long doctorId, LocalDate from, LocalDate to);
+    List<AppointmentSlot> findByDoctor_DoctorIdAndStatusAndDateBetween(Long doctorId, SlotStatus status, LocalDate from, LocalDate to);
+    List<AppointmentSlot> findByDoctor_DoctorIdAndStartTimeAndDateIn(Long doctorId, LocalTime startTime, Collection<LocalDate> dates);
+    // Booking maps the slot's doctor and specialty into the response
+    @EntityGraph(attributePaths = {"doctor", "doctor.specialty"})
+    Optional<AppointmentSlot> findWithDoctorBySlotId(Long slotId);
+    @EntityGraph(attributePaths = {"doctor", "doctor.specialty"})
+    Optional<AppointmentSlot> findByDoctor_DoctorIdAndDateAndStartTime(Long doctorId, LocalDate date, LocalTime startTime);
+
     boolean existsByDoctor_DoctorIdAndDateAndStartTimeAndEndTime(Long doctorId, LocalDate today, LocalTime currentTime, LocalTime slotEndTime);
 
     void deleteByDoctor_DoctorId(Long doctorId);
+
+    // The updates below bump the version in the database only; a slot already loaded in the same transaction
+    // keeps its old status and version, so callers detach it instead of modifying and saving it afterwards
+
+    // Move a slot to a new status only if it is still in the expected one; returns 0 when someone else got there first
+    @Modifying(flushAutomatically = true)
+    @Query("update AppointmentSlot s set s.status = :to, s.updatedAt = :now, s.version = s.version + 1 " +
+            "where s.slotId = :slotId and s.status = :from")
+    int transitionStatus(@Param("slotId") Long slotId, @Param("from") SlotStatus from, @Param("to") SlotStatus to,
+                         @Param("now") LocalDateTime now);
+
+    // Reserve slots that are free or only held by a lapsed hold, like placeHold takes them over, so a booking
+    // does not wait for the sweep; the count tells how many could be reserved
+    @Modifying(flushAutomatically = true)
+    @Query("update AppointmentSlot s set s.status = :reserved, s.heldByPatientId = null, s.holdExpiresAt = null, " +
+            "s.updatedAt = :now, s.version = s.version + 1 " +
+            "where s.slotId in :slotIds and (s.status = :available or (s.status = :pending and s.holdExpiresAt < :now))")
+    int reserve(@Param("slotIds") Collection<Long> slotIds, @Param("now") LocalDateTime now,
+                @Param("available") SlotStatus available, @Param("pending") SlotStatus pending,
+                @Param("reserved") SlotStatus reserved);
+
+    // Hold a slot for a patient, extending their own hold or taking over a lapsed one
+    @Modifying(flushAutomatically = true)
+    @Query("update AppointmentSlot s set s.status = :pending, s.heldByPatientId = :patientId, s.holdExpiresAt = :expiresAt, " +
+            "s.updatedAt = :now, s.version = s.version + 1 " +
+            "where s.slotId = :slotId and (s.status = :available or (s.status = :pending " +
+            "and (s.heldByPatientId = :patientId or s.holdExpiresAt < :now)))")
+    int placeHold(@Param("slotId") Long slotId, @Param("patientId") Long patientId, @Param("expiresAt") LocalDateTime expiresAt,
+                  @Param("now") LocalDateTime now, @Param("available") SlotStatus available, @Param("pending") SlotStatus pending);
+
+    // Turn a live hold of the given patient into another status
+    @Modifying(flushAutomatically = true)
+    @Query("update AppointmentSlot s set s.status = :to, s.heldByPatientId = null, s.holdExpiresAt = null, " +
+            "s.updatedAt = :now, s.version = s.version + 1 " +
+            "where s.slotId = :slotId and s.status = :pending and s.heldByPatientId = :patientId and s.holdExpiresAt >= :now")
+    int completeHold(@Param("slotId") Long slotId, @Param("patientId") Long patientId, @Param("to") SlotStatus to,
+                     @Param("now") LocalDateTime now, @Param("pending") SlotStatus pending);
+
+    @Query("select s.slotId from AppointmentSlot s where s.status = :pending and s.holdExpiresAt < :now order by s.holdExpiresAt")
+    List<Long> findExpiredHolds(@Param("pending") SlotStatus pending, @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("update AppointmentSlot s set s.status = :available, s.heldByPatientId = null, s.holdExpiresAt = null, " +
+            "s.updatedAt = :now, s.version = s.version + 1 " +
+            "where s.slotId in :slotIds and s.status = :pending and s.holdExpiresAt < :now")
+    int releaseExpiredHolds(@Param("slotIds") Collection<Long> slotIds, @Param("now") LocalDateTime now,
+                            @Param("available") SlotStatus available, @Param("pending") SlotStatus pending);
+
+    // Delete the given slots that are still in the given status and not linked to any appointment
+    @Modifying
+    @Query("delete from AppointmentSlot s where s.slotId in :slotIds and s.status = :status " +
+            "and not exists (select a.appointmentId from Appointment a where a.slot = s)")
+    int deleteUnreferencedByIdsAndStatus(@Param("slotIds") Collection<Long> slotIds, @Param("status") SlotStatus status);
 }
@@ -0,0 +1,33 @@
+package york.medical.repositories;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Row count and latest updatedAt of the data behind a read endpoint, used for conditional GETs.
+// Inserts and updates move lastModified, deletes move the row count.
+public record ChangeStamp(Long rows, LocalDateTime lastModified) {
+
+    // Stamp of a response built from several tables; the counts are mixed in order
+    public ChangeStamp combine(ChangeStamp other) {
+        LocalDateTime latest = lastModified == null ? other.lastModified
+                : other.lastModified == null || lastModified.isAfter(other.lastModified) ? lastModified : other.lastModified;
+        return new ChangeStamp(31 * rows + other.rows, latest);
+    }
+
+    // Strong ETag of the response, the parts being the request parameters that shape it
+    public String etag(Object... parts) {
+        StringBuilder value = new StringBuilder().append(rows).append('|').append(lastModified);
+        for (Object part : parts) {
+            value.append('|').append(part);
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(value.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Last-Modified timestamp, -1 when there are no rows
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
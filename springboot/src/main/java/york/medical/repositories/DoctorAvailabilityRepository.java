@@ -1,13 +1,19 @@
 package york.medical.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import york.medical.entities.DoctorAvailability;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface DoctorAvailabilityRepository extends JpaRepository<DoctorAvailability, Long> {
     List<DoctorAvailability> findByDoctor_DoctorId(Long doctorId);
+    List<DoctorAvailability> findByDoctor_DoctorIdIn(Collection<Long> doctorIds);
     List<DoctorAvailability> findByDoctor_DoctorIdAndDayOfWeek(Long doctorId, york.medical.enums.DayOfWeek dayOfWeek);
 
     void deleteByDoctor_DoctorId(Long doctorId);
+
+    @Query("select new york.medical.repositories.ChangeStamp(count(a), max(a.updatedAt)) from DoctorAvailability a")
+    ChangeStamp findChangeStamp();
 }
@@ -1,15 +1,56 @@
 package york.medical.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import york.medical.entities.Doctor;
 import york.medical.enums.EmploymentStatus;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    // Listings load the specialty in the same query instead of one select per doctor
+    @Override
+    @EntityGraph(attributePaths = "specialty")
+    List<Doctor> findAll();
+
+    @EntityGraph(attributePaths = "specialty")
+    Optional<Doctor> findWithSpecialtyByDoctorId(Long doctorId);
+
+    @EntityGraph(attributePaths = "specialty")
     List<Doctor> findBySpecialty_SpecialtyIdAndEmploymentStatus(Long specialtyId, EmploymentStatus employmentStatus);
 
+    // Keyset page of the directory in id order, optionally filtered by specialty and employment status
+    @EntityGraph(attributePaths = "specialty")
+    @Query("select d from Doctor d where d.doctorId > :afterId " +
+            "and (:specialtyId is null or d.specialty.specialtyId = :specialtyId) " +
+            "and (:status is null or d.employmentStatus = :status) " +
+            "order by d.doctorId asc")
+    List<Doctor> findDirectoryPage(@Param("afterId") Long afterId, @Param("specialtyId") Long specialtyId,
+                                   @Param("status") EmploymentStatus status, Pageable pageable);
+
+    // The whole directory in id order, read through a cursor for the streamed admin export
+    @EntityGraph(attributePaths = "specialty")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select d from Doctor d " +
+            "where (:specialtyId is null or d.specialty.specialtyId = :specialtyId) " +
+            "and (:status is null or d.employmentStatus = :status) " +
+            "order by d.doctorId asc")
+    Stream<Doctor> streamDirectory(@Param("specialtyId") Long specialtyId, @Param("status") EmploymentStatus status);
+
+    List<Doctor> findByEmploymentStatusAndDoctorIdGreaterThanOrderByDoctorIdAsc(EmploymentStatus employmentStatus, Long doctorId, Pageable pageable);
+
     long countByEmploymentStatus(EmploymentStatus employmentStatus);
+
+    @Query("select new york.medical.repositories.ChangeStamp(count(d), max(d.updatedAt)) from Doctor d")
+    ChangeStamp findChangeStamp();
 }
 
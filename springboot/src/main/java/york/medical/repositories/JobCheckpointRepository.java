@@ -0,0 +1,7 @@
+package york.medical.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import york.medical.entities.JobCheckpoint;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -1,10 +1,18 @@
 package york.medical.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import york.medical.entities.Patient;
 
 import java.util.Optional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+    // The profile endpoints serialize the patient with its auth record
+    @EntityGraph(attributePaths = "auth")
     Optional<Patient> findByAuth_OktaId(String oktaId);
+
+    @Query("select p.patientId from Patient p where p.auth.oktaId = :oktaId")
+    Optional<Long> findPatientIdByOktaId(@Param("oktaId") String oktaId);
 }
@@ -1,10 +1,14 @@
 package york.medical.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import york.medical.entities.Specialty;
 
 import java.util.Optional;
 
 public interface SpecialtyRepository extends JpaRepository<Specialty, Long> {
     Optional<Specialty> findByName(String name);
+
+    @Query("select new york.medical.repositories.ChangeStamp(count(s), max(s.updatedAt)) from Specialty s")
+    ChangeStamp findChangeStamp();
 }
@@ -1,196 +1,544 @@
 package york.medical.services;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import york.medical.dtos.requests.AppointmentRequest;
+import york.medical.dtos.requests.HoldConfirmRequest;
+import york.medical.dtos.requests.NextAvailableRequest;
+import york.medical.dtos.requests.SeriesBookingRequest;
+import york.medical.dtos.requests.SlotHoldRequest;
 import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.dtos.responses.CursorPage;
+import york.medical.dtos.responses.SeriesBookingResponse;
+import york.medical.dtos.responses.SlotHoldResponse;
 import york.medical.dtos.responses.SlotResponse;
 import york.medical.entities.Appointment;
 import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.DoctorAvailability;
 import york.medical.entities.Patient;
 import york.medical.enums.AppointmentStatus;
+import york.medical.enums.EmploymentStatus;
 import york.medical.enums.SlotStatus;
+import york.medical.enums.VisitType;
+import york.medical.exceptions.ConflictException;
 import york.medical.exceptions.ResourceNotFoundException;
 import york.medical.repositories.*;
+import york.medical.services.SlotGenerationService.SlotKey;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class AppointmentService {
 
+    private static final int HOLD_SWEEP_BATCH_SIZE = 500;
+    private static final String DUPLICATE_APPOINTMENT_MESSAGE =
+            "Patient already has an active appointment with this doctor on the same day.";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final AppointmentRepository appointmentRepository;
     private final AppointmentSlotRepository slotRepository;
     private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityRepository availabilityRepository;
+    private final SlotGenerationService slotGenerationService;
+    private final ConcurrencyRetry concurrencyRetry;
+    private final BookingCoordinator bookingCoordinator;
+    private final DoctorService doctorService;
+    private final Pagination pagination;
+    private final StatsService statsService;
+    private final long holdTtlSeconds;
 
     @Autowired
     public AppointmentService(AppointmentRepository appointmentRepository,
                               AppointmentSlotRepository slotRepository,
                               PatientRepository patientRepository,
-                              DoctorRepository doctorRepository) {
+                              DoctorRepository doctorRepository,
+                              DoctorAvailabilityRepository availabilityRepository,
+                              SlotGenerationService slotGenerationService,
+                              ConcurrencyRetry concurrencyRetry,
+                              BookingCoordinator bookingCoordinator,
+                              DoctorService doctorService,
+                              Pagination pagination,
+                              StatsService statsService,
+                              @Value("${medical.slots.hold-ttl-seconds:300}") long holdTtlSeconds) {
         this.appointmentRepository = appointmentRepository;
         this.slotRepository = slotRepository;
         this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.availabilityRepository = availabilityRepository;
+        this.slotGenerationService = slotGenerationService;
+        this.concurrencyRetry = concurrencyRetry;
+        this.bookingCoordinator = bookingCoordinator;
+        this.doctorService = doctorService;
+        this.pagination = pagination;
+        this.statsService = statsService;
+        this.holdTtlSeconds = holdTtlSeconds;
     }
 
     // Fetch Available Slots
     public List<SlotResponse> getAvailableSlots(Long doctorId, LocalDate date) {
+        if (slotGenerationService.isVirtual()) {
+            return getVirtualSlots(doctorId, date);
+        }
         try {
-            return slotRepository.findByDoctor_DoctorIdAndDateAndStatus(doctorId, date, SlotStatus.AVAILABLE)
-                    .stream()
-                    .map(this::mapSlotToResponse)
-                    .collect(Collectors.toList());
+            return slotRepository.findResponsesByDoctorAndDateAndStatus(doctorId, date, SlotStatus.AVAILABLE);
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while fetching available slots.", e);
         }
     }
 
-    public List<AppointmentResponse> getAllAppointmentsByOktaId(String oktaId) {
-        // Find the patient by Okta ID
-        Patient patient = patientRepository.findByAuth_OktaId(oktaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Patient not found for Okta ID: " + oktaId));
+    // Derive the free slots of a day from the doctor's availability minus the stored (booked) slots
+    private List<SlotResponse> getVirtualSlots(Long doctorId, LocalDate date) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
+
+        Map<LocalTime, AppointmentSlot> storedSlots = new HashMap<>();
+        for (AppointmentSlot slot : slotRepository.findByDoctor_DoctorIdAndDate(doctorId, date)) {
+            storedSlots.put(slot.getStartTime(), slot);
+        }
+
+        List<SlotResponse> slots = new ArrayList<>();
+        for (SlotKey key : slotGenerationService.computeSlots(availabilityRepository.findByDoctor_DoctorId(doctorId), date, date)) {
+            AppointmentSlot stored = storedSlots.get(key.startTime());
+            if (stored != null && !stored.getStatus().equals(SlotStatus.AVAILABLE)) {
+                continue;
+            }
+            SlotResponse response = new SlotResponse();
+            response.setSlotId(stored != null ? stored.getSlotId() : null);
+            response.setDoctorId(doctor.getDoctorId());
+            response.setDoctorName(doctor.getFirstName() + " " + doctor.getLastName());
+            response.setDate(key.date());
+            response.setStartTime(key.startTime());
+            response.setEndTime(key.endTime());
+            response.setStatus(SlotStatus.AVAILABLE);
+            slots.add(response);
+        }
+        return slots;
+    }
+
+    // Earliest free slots across the active doctors of a specialty, in time order
+    public List<SlotResponse> findNextAvailableSlots(NextAvailableRequest request) {
+        if (slotGenerationService.isVirtual()) {
+            return findNextVirtualSlots(request);
+        }
+        return slotRepository.findEarliestBySpecialty(request.getSpecialtyId(), EmploymentStatus.ACTIVE, SlotStatus.AVAILABLE,
+                request.getFrom(), request.getTo(), PageRequest.of(0, request.getLimit()));
+    }
+
+    // Walk the days in order and stop as soon as a day fills the limit
+    private List<SlotResponse> findNextVirtualSlots(NextAvailableRequest request) {
+        List<Doctor> doctors = doctorRepository.findBySpecialty_SpecialtyIdAndEmploymentStatus(
+                request.getSpecialtyId(), EmploymentStatus.ACTIVE);
+        if (doctors.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> doctorIds = doctors.stream().map(Doctor::getDoctorId).collect(Collectors.toList());
+
+        Map<Long, List<DoctorAvailability>> rules = availabilityRepository.findByDoctor_DoctorIdIn(doctorIds).stream()
+                .collect(Collectors.groupingBy(av -> av.getDoctor().getDoctorId()));
+        Map<Long, Map<SlotKey, AppointmentSlot>> stored = new HashMap<>();
+        for (AppointmentSlot slot : slotRepository.findByDoctor_DoctorIdInAndDateBetween(doctorIds, request.getFrom(), request.getTo())) {
+            stored.computeIfAbsent(slot.getDoctor().getDoctorId(), id -> new HashMap<>())
+                    .put(new SlotKey(slot.getDate(), slot.getStartTime(), slot.getEndTime()), slot);
+        }
+
+        List<SlotResponse> slots = new ArrayList<>();
+        for (LocalDate day = request.getFrom(); !day.isAfter(request.getTo()) && slots.size() < request.getLimit(); day = day.plusDays(1)) {
+            List<SlotResponse> daySlots = new ArrayList<>();
+            for (Doctor doctor : doctors) {
+                Map<SlotKey, AppointmentSlot> doctorSlots = stored.getOrDefault(doctor.getDoctorId(), Map.of());
+                for (SlotKey key : slotGenerationService.computeSlots(rules.getOrDefault(doctor.getDoctorId(), List.of()), day, day)) {
+                    AppointmentSlot slot = doctorSlots.get(key);
+                    if (slot == null || slot.getStatus().equals(SlotStatus.AVAILABLE)) {
+                        daySlots.add(new SlotResponse(slot != null ? slot.getSlotId() : null, doctor.getDoctorId(),
+                                doctor.getFirstName(), doctor.getLastName(), key.date(), key.startTime(), key.endTime(),
+                                SlotStatus.AVAILABLE));
+                    }
+                }
+            }
+            daySlots.sort(Comparator.comparing(SlotResponse::getStartTime).thenComparing(SlotResponse::getDoctorId));
+            slots.addAll(daySlots);
+        }
+        return slots.size() > request.getLimit() ? new ArrayList<>(slots.subList(0, request.getLimit())) : slots;
+    }
+
+    // Version of a patient's appointment list; the responses also carry the doctor names, which the
+    // cached directory stamp already covers, so only the patient's appointments are read here
+    public ChangeStamp getAppointmentsStamp(Long patientId) {
+        return appointmentRepository.findChangeStampByPatientId(patientId).combine(doctorService.getDirectoryStamp());
+    }
+
+    // Fetch a page of the patient's appointments, newest first, optionally filtered by status and date range
+    public CursorPage<AppointmentResponse> getAppointmentsByPatientId(Long patientId, AppointmentStatus status,
+                                                                      LocalDate from, LocalDate to,
+                                                                      String cursor, Integer size) {
+        String[] keys = Pagination.decodeCursor(cursor, 2);
+        LocalDate cursorDate = null;
+        Long cursorId = null;
+        if (keys != null) {
+            try {
+                cursorDate = LocalDate.parse(keys[0]);
+                cursorId = Long.valueOf(keys[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid page cursor.", e);
+            }
+        }
+        int pageSize = pagination.pageSize(size);
 
-        // Retrieve appointments for the patient
-        List<Appointment> appointments = appointmentRepository.findByPatient_PatientId(patient.getPatientId());
+        // Retrieve one page of appointments for the patient
+        List<AppointmentResponse> appointments = appointmentRepository.findPatientPage(patientId, status, from, to,
+                cursorDate, cursorId, Pagination.lookAhead(pageSize));
 
-        return appointments.stream()
-                .map(this::mapAppointmentToResponse)
-                .collect(Collectors.toList());
+        return Pagination.toPage(appointments, pageSize, page -> page,
+                appointment -> Pagination.encodeCursor(appointment.getDate(), appointment.getAppointmentId()));
     }
 
-    public long getNonCancelledAppointmentsCount() {
-        return appointmentRepository.countByStatusNot(AppointmentStatus.CANCELLED);
+    // Stream every appointment to the sink in (date, id) order without holding them in memory.
+    // Rows are read through a database cursor as projections, so nothing piles up in the persistence context.
+    @Transactional(readOnly = true)
+    public void exportAppointments(AppointmentStatus status, LocalDate from, LocalDate to, Consumer<AppointmentResponse> sink) {
+        try (Stream<AppointmentResponse> appointments = appointmentRepository.streamResponses(status, from, to)) {
+            appointments.forEach(sink);
+        }
     }
 
     // Get appointments by Patient ID
     public List<AppointmentResponse> getAllAppointmentsByPatientId(Long patientId) {
-        List<Appointment> appointments = appointmentRepository.findByPatient_PatientId(patientId);
+        List<AppointmentResponse> appointments = appointmentRepository.findResponsesByPatientId(patientId);
 
         if (appointments.isEmpty()) {
             throw new ResourceNotFoundException("No appointments found for patient with ID: " + patientId);
         }
 
-        return appointments.stream()
-                .map(this::mapAppointmentToResponse)
-                .collect(Collectors.toList());
+        return appointments;
     }
 
     // Create Appointment
-    @Transactional
+    // Every attempt re-reads and re-validates, so a version conflict is retried
     public AppointmentResponse createAppointment(AppointmentRequest request) {
+        return onDoctorDay(request.getSlotId(), request.getDoctorId(), request.getDate(),
+                knownSlot -> bookAppointment(request, knownSlot));
+    }
+
+    private AppointmentResponse bookAppointment(AppointmentRequest request, AppointmentSlot knownSlot) {
 
         // Validate Patient
         Patient patient = patientRepository.findById(request.getPatientId())
                 .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + request.getPatientId()));
 
-        // Validate Slot
-        AppointmentSlot slot = slotRepository.findById(request.getSlotId())
-                .orElseThrow(() -> new ResourceNotFoundException("Slot not found with ID: " + request.getSlotId()));
-
-        if (!slot.getStatus().equals(SlotStatus.AVAILABLE)) {
-            throw new IllegalArgumentException("Slot is not available for booking.");
-        }
-
-        // Prevent duplicate appointments (non-cancelled)
-        appointmentRepository.findByPatient_PatientIdAndDoctor_DoctorIdAndDateAndStatusNot(
-                        patient.getPatientId(), slot.getDoctor().getDoctorId(), slot.getDate(), AppointmentStatus.CANCELLED)
-                .ifPresent(existingAppointment -> {
-                    throw new IllegalArgumentException("Patient already has an active appointment with this doctor on the same day.");
-                });
-
-        // Create Appointment
-        Appointment appointment = new Appointment();
-        appointment.setPatient(patient);
-        appointment.setDoctor(slot.getDoctor());
-        appointment.setSlot(slot);
-        appointment.setDate(slot.getDate());
-        appointment.setStatus(AppointmentStatus.CONFIRMED);
-        appointment.setVisitType(request.getVisitType());
-
-        appointmentRepository.save(appointment);
+        // Validate Slot and claim it, only one concurrent request can move it out of AVAILABLE
+        AppointmentSlot slot = knownSlot != null ? knownSlot
+                : resolveSlot(request.getDoctorId(), request.getDate(), request.getStartTime());
+        claimSlot(slot);
 
-        // Update Slot to RESERVED
-        slot.setStatus(SlotStatus.RESERVED);
-        slotRepository.save(slot);
+        Appointment appointment = saveConfirmedAppointment(patient, slot, request.getVisitType());
+        statsService.appointmentsBooked(1);
 
         return mapAppointmentToResponse(appointment);
     }
 
     // Update Appointment
-    @Transactional
     public AppointmentResponse updateAppointment(Long appointmentId, AppointmentRequest request) {
-        // Fetch the existing appointment
-        Appointment appointment = appointmentRepository.findById(appointmentId)
+        return onDoctorDay(request.getSlotId(), request.getDoctorId(), request.getDate(),
+                knownSlot -> rescheduleAppointment(appointmentId, request, knownSlot));
+    }
+
+    // Move an appointment to another slot: read the appointment, claim the new slot, release the old one,
+    // cancel the old appointment and insert its replacement linked to it. The new slot is claimed first,
+    // so a lost race leaves the old booking untouched.
+    private AppointmentResponse rescheduleAppointment(Long appointmentId, AppointmentRequest request, AppointmentSlot knownSlot) {
+        Appointment appointment = appointmentRepository.findForRescheduleByAppointmentId(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
 
-        // Free up the old slot and cancel the current appointment
+        if (appointment.getStatus().equals(AppointmentStatus.CANCELLED)) {
+            throw new IllegalArgumentException("A cancelled appointment cannot be changed.");
+        }
+        if (!appointment.getPatient().getPatientId().equals(request.getPatientId())) {
+            throw new IllegalArgumentException("The appointment does not belong to patient with ID: " + request.getPatientId());
+        }
+
+        // Use visitType from request if provided, otherwise use existing visitType
+        VisitType visitType = request.getVisitType() != null ? request.getVisitType() : appointment.getVisitType();
+        AppointmentSlot newSlot = knownSlot != null ? knownSlot
+                : resolveSlot(request.getDoctorId(), request.getDate(), request.getStartTime());
         AppointmentSlot oldSlot = appointment.getSlot();
+
+        // Same slot, only the visit type can change
+        if (oldSlot != null && oldSlot.getSlotId().equals(newSlot.getSlotId())) {
+            appointment.setVisitType(visitType);
+            return mapAppointmentToResponse(appointmentRepository.saveAndFlush(appointment));
+        }
+
+        claimSlot(newSlot);
         if (oldSlot != null) {
-            oldSlot.setStatus(SlotStatus.AVAILABLE);
-            slotRepository.save(oldSlot);
+            releaseSlot(oldSlot);
+            appointment.setSlot(null);
         }
+
+        // The old appointment leaves the active day before its replacement is inserted
         appointment.setStatus(AppointmentStatus.CANCELLED);
-        appointmentRepository.save(appointment);
+        appointmentRepository.saveAndFlush(appointment);
 
-        // Validate Patient
-        Patient patient = patientRepository.findById(request.getPatientId())
-                .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + request.getPatientId()));
+        Appointment replacement = new Appointment();
+        replacement.setPatient(appointment.getPatient());
+        replacement.setDoctor(newSlot.getDoctor());
+        replacement.setSlot(newSlot);
+        replacement.setDate(newSlot.getDate());
+        replacement.setStatus(AppointmentStatus.CONFIRMED);
+        replacement.setVisitType(visitType);
+        replacement.setRescheduledFrom(appointment);
 
-        // Validate Slot
-        AppointmentSlot newSlot = slotRepository.findById(request.getSlotId())
-                .orElseThrow(() -> new ResourceNotFoundException("Slot not found with ID: " + request.getSlotId()));
+        try {
+            return mapAppointmentToResponse(appointmentRepository.saveAndFlush(replacement));
+        } catch (DataIntegrityViolationException e) {
+            throw translateIntegrityViolation(e);
+        }
+    }
 
-        if (!newSlot.getStatus().equals(SlotStatus.AVAILABLE)) {
-            throw new IllegalArgumentException("The selected slot is not available.");
+    // Book a weekly series of appointments at the same time of day, all or nothing.
+    // The slots and the patient's existing appointments are loaded with one query each; if any week
+    // is unavailable nothing is written and the report says which weeks failed.
+    // The series queues behind the other bookings of each of its days.
+    public SeriesBookingResponse bookSeries(SeriesBookingRequest request) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < request.getCount(); i++) {
+            dates.add(request.getStartDate().plusWeeks((long) i * request.getIntervalWeeks()));
         }
 
-        // Prevent duplicate appointments (non-cancelled)
-        appointmentRepository.findByPatient_PatientIdAndDoctor_DoctorIdAndDateAndStatusNot(
-                        patient.getPatientId(), newSlot.getDoctor().getDoctorId(), newSlot.getDate(), AppointmentStatus.CANCELLED)
-                .ifPresent(existingAppointment -> {
-                    throw new IllegalArgumentException("Patient already has an active appointment with this doctor on the same day.");
-                });
+        Function<Supplier<SeriesBookingResponse>, SeriesBookingResponse> queued =
+                attempt -> bookingCoordinator.execute(request.getDoctorId(), dates, attempt);
+        return concurrencyRetry.inTransaction(queued, () -> {
+            Patient patient = patientRepository.findById(request.getPatientId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + request.getPatientId()));
+            Doctor doctor = doctorRepository.findWithSpecialtyByDoctorId(request.getDoctorId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + request.getDoctorId()));
+
+            Map<LocalDate, AppointmentSlot> storedSlots = new HashMap<>();
+            for (AppointmentSlot slot : slotRepository.findByDoctor_DoctorIdAndStartTimeAndDateIn(
+                    doctor.getDoctorId(), request.getStartTime(), dates)) {
+                storedSlots.put(slot.getDate(), slot);
+            }
 
-        // Create new appointment
-        Appointment newAppointment = new Appointment();
-        newAppointment.setPatient(patient);
-        newAppointment.setDoctor(newSlot.getDoctor());
-        newAppointment.setSlot(newSlot);
-        newAppointment.setDate(newSlot.getDate());
-        newAppointment.setStatus(AppointmentStatus.CONFIRMED);
-        // Use visitType from request if provided, otherwise use existing visitType
-        newAppointment.setVisitType(request.getVisitType() != null ? request.getVisitType() : appointment.getVisitType());
+            // In virtual mode a free slot may only exist in the availability rules
+            Map<LocalDate, SlotKey> virtualSlots = new HashMap<>();
+            if (slotGenerationService.isVirtual()) {
+                for (SlotKey key : slotGenerationService.computeSlots(availabilityRepository.findByDoctor_DoctorId(
+                        doctor.getDoctorId()), dates.get(0), dates.get(dates.size() - 1))) {
+                    if (key.startTime().equals(request.getStartTime())) {
+                        virtualSlots.put(key.date(), key);
+                    }
+                }
+            }
+
+            Set<LocalDate> bookedDays = appointmentRepository.findByPatient_PatientIdAndDoctor_DoctorIdAndDateInAndStatusNot(
+                            patient.getPatientId(), doctor.getDoctorId(), dates, AppointmentStatus.CANCELLED)
+                    .stream()
+                    .map(Appointment::getDate)
+                    .collect(Collectors.toSet());
+
+            // Validate every week before writing anything
+            LocalDateTime now = LocalDateTime.now();
+            List<SeriesBookingResponse.OccurrenceResponse> occurrences = new ArrayList<>();
+            boolean allAvailable = true;
+            for (LocalDate date : dates) {
+                AppointmentSlot stored = storedSlots.get(date);
+                SeriesBookingResponse.OccurrenceResponse occurrence = new SeriesBookingResponse.OccurrenceResponse();
+                occurrence.setDate(date);
+                occurrence.setStartTime(request.getStartTime());
+                occurrence.setSlotId(stored != null ? stored.getSlotId() : null);
+
+                if (stored == null && !virtualSlots.containsKey(date)) {
+                    occurrence.setReason("Doctor is not available at the requested time.");
+                } else if (stored != null && !isBookable(stored, now)) {
+                    occurrence.setReason("Slot is not available for booking.");
+                } else if (bookedDays.contains(date)) {
+                    occurrence.setReason(DUPLICATE_APPOINTMENT_MESSAGE);
+                }
+                occurrence.setAvailable(occurrence.getReason() == null);
+                allAvailable &= occurrence.isAvailable();
+                occurrences.add(occurrence);
+            }
 
-        appointmentRepository.save(newAppointment);
+            SeriesBookingResponse response = new SeriesBookingResponse();
+            response.setOccurrences(occurrences);
+            if (!allAvailable) {
+                response.setBooked(false);
+                response.setAppointments(List.of());
+                return response;
+            }
 
-        // Update the slot to RESERVED
-        newSlot.setStatus(SlotStatus.RESERVED);
-        slotRepository.save(newSlot);
+            // Claim the stored slots with a single conditional update, a lost race rolls the whole series back
+            List<Long> storedIds = storedSlots.values().stream().map(AppointmentSlot::getSlotId).collect(Collectors.toList());
+            if (!storedIds.isEmpty()
+                    && slotRepository.reserve(storedIds, now, SlotStatus.AVAILABLE, SlotStatus.PENDING, SlotStatus.RESERVED) != storedIds.size()) {
+                throw new ConflictException("Some slots of the series were booked in the meantime.");
+            }
+            storedSlots.values().forEach(this::detach);
+
+            // Store the virtual slots directly as reserved
+            List<AppointmentSlot> newSlots = new ArrayList<>();
+            for (LocalDate date : dates) {
+                if (!storedSlots.containsKey(date)) {
+                    SlotKey key = virtualSlots.get(date);
+                    AppointmentSlot slot = new AppointmentSlot();
+                    slot.setDoctor(doctor);
+                    slot.setDate(key.date());
+                    slot.setStartTime(key.startTime());
+                    slot.setEndTime(key.endTime());
+                    slot.setStatus(SlotStatus.RESERVED);
+                    newSlots.add(slot);
+                }
+            }
+            try {
+                for (AppointmentSlot slot : slotRepository.saveAll(newSlots)) {
+                    storedSlots.put(slot.getDate(), slot);
+                }
+            } catch (DataIntegrityViolationException e) {
+                throw translateIntegrityViolation(e);
+            }
 
-        return mapAppointmentToResponse(newAppointment);
+            List<Appointment> appointments = new ArrayList<>();
+            for (LocalDate date : dates) {
+                Appointment appointment = new Appointment();
+                appointment.setPatient(patient);
+                appointment.setDoctor(doctor);
+                appointment.setSlot(storedSlots.get(date));
+                appointment.setDate(date);
+                appointment.setStatus(AppointmentStatus.CONFIRMED);
+                appointment.setVisitType(request.getVisitType());
+                appointments.add(appointment);
+            }
+
+            List<Appointment> saved;
+            try {
+                saved = appointmentRepository.saveAllAndFlush(appointments);
+            } catch (DataIntegrityViolationException e) {
+                throw translateIntegrityViolation(e);
+            }
+
+            statsService.appointmentsBooked(saved.size());
+            response.setBooked(true);
+            response.setAppointments(saved.stream()
+                    .map(this::mapAppointmentToResponse)
+                    .collect(Collectors.toList()));
+            return response;
+        });
+    }
+
+    // Hold a slot for the signed-in patient while they finish booking
+    public SlotHoldResponse holdSlot(Long patientId, SlotHoldRequest request) {
+        return onDoctorDay(request.getSlotId(), request.getDoctorId(), request.getDate(), knownSlot -> {
+            AppointmentSlot slot = knownSlot != null ? knownSlot
+                    : resolveSlot(request.getDoctorId(), request.getDate(), request.getStartTime());
+
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusSeconds(holdTtlSeconds);
+            if (slotRepository.placeHold(slot.getSlotId(), patientId, expiresAt, now,
+                    SlotStatus.AVAILABLE, SlotStatus.PENDING) == 0) {
+                throw new ConflictException("Slot is not available for booking.");
+            }
+            detach(slot);
+
+            SlotHoldResponse response = new SlotHoldResponse();
+            response.setSlotId(slot.getSlotId());
+            response.setPatientId(patientId);
+            response.setDoctorId(slot.getDoctor().getDoctorId());
+            response.setDate(slot.getDate());
+            response.setStartTime(slot.getStartTime());
+            response.setEndTime(slot.getEndTime());
+            response.setExpiresAt(expiresAt);
+            return response;
+        });
+    }
+
+    // Turn the signed-in patient's hold into a confirmed appointment
+    public AppointmentResponse confirmHold(Long slotId, Long patientId, HoldConfirmRequest request) {
+        return onDoctorDay(slotId, null, null, slot -> {
+            Patient patient = patientRepository.findById(patientId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + patientId));
+
+            if (slotRepository.completeHold(slotId, patient.getPatientId(), SlotStatus.RESERVED,
+                    LocalDateTime.now(), SlotStatus.PENDING) == 0) {
+                throw new ConflictException("The hold on this slot has expired or belongs to another patient.");
+            }
+            detach(slot);
+
+            Appointment appointment = saveConfirmedAppointment(patient, slot, request.getVisitType());
+            statsService.appointmentsBooked(1);
+            return mapAppointmentToResponse(appointment);
+        });
+    }
+
+    // Give up the signed-in patient's hold before it expires
+    public void releaseHold(Long slotId, Long patientId) {
+        concurrencyRetry.inTransactionWithoutResult(() -> slotRepository.completeHold(
+                slotId, patientId, SlotStatus.AVAILABLE, LocalDateTime.now(), SlotStatus.PENDING));
+    }
+
+    // Release lapsed holds in batches so their slots become bookable again
+    @Scheduled(fixedDelayString = "${medical.slots.hold-sweep-millis:30000}")
+    public void releaseExpiredHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expired;
+        do {
+            expired = slotRepository.findExpiredHolds(SlotStatus.PENDING, now, PageRequest.of(0, HOLD_SWEEP_BATCH_SIZE));
+            if (!expired.isEmpty()) {
+                List<Long> batch = expired;
+                concurrencyRetry.inTransactionWithoutResult(() -> slotRepository.releaseExpiredHolds(
+                        batch, now, SlotStatus.AVAILABLE, SlotStatus.PENDING));
+            }
+        } while (expired.size() == HOLD_SWEEP_BATCH_SIZE);
     }
 
     // Cancel Appointment
-    @Transactional
     public void cancelAppointment(Long appointmentId) {
-        Appointment appointment = appointmentRepository.findById(appointmentId)
+        concurrencyRetry.inTransactionWithoutResult(() -> cancel(appointmentId));
+    }
+
+    private void cancel(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findWithSlotByAppointmentId(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
 
         try {
             // Free up the slot
             AppointmentSlot slot = appointment.getSlot();
             if (slot != null) {
-                slot.setStatus(SlotStatus.AVAILABLE);
-                slotRepository.save(slot);
+                releaseSlot(slot);
 
                 // Dissociate the slot from the appointment
                 appointment.setSlot(null);
             }
 
             // Update appointment status
+            if (!appointment.getStatus().equals(AppointmentStatus.CANCELLED)) {
+                statsService.appointmentCancelled();
+            }
             appointment.setStatus(AppointmentStatus.CANCELLED);
             appointmentRepository.save(appointment);
         } catch (Exception e) {
@@ -198,6 +546,116 @@ public class AppointmentService {
         }
     }
 
+    // Helper: Queue the work behind other requests for the same doctor and day, then run it in a retried transaction.
+    // A slot picked by ID decides the doctor and day itself, whatever the request claims; the lock is
+    // taken for each attempt and released before a retry backs off.
+    // That slot is loaded once, before queueing, and handed to every attempt (null when none was picked):
+    // its doctor, day and times never change, and the conditional update inside the transaction is what
+    // decides whether it is still free.
+    private <T> T onDoctorDay(Long slotId, Long doctorId, LocalDate date, Function<AppointmentSlot, T> work) {
+        AppointmentSlot knownSlot = slotId == null ? null : slotRepository.findWithDoctorBySlotId(slotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Slot not found with ID: " + slotId));
+        Long stripeDoctorId = knownSlot != null ? knownSlot.getDoctor().getDoctorId() : doctorId;
+        LocalDate day = knownSlot != null ? knownSlot.getDate() : date;
+        return concurrencyRetry.inTransaction(attempt -> bookingCoordinator.execute(stripeDoctorId, day, attempt),
+                () -> work.apply(knownSlot));
+    }
+
+    // Helper: Create a confirmed appointment on a slot the caller already reserved
+    // Duplicate appointments (non-cancelled) are rejected by the active day unique constraint
+    private Appointment saveConfirmedAppointment(Patient patient, AppointmentSlot slot, VisitType visitType) {
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(slot.getDoctor());
+        appointment.setSlot(slot);
+        appointment.setDate(slot.getDate());
+        appointment.setStatus(AppointmentStatus.CONFIRMED);
+        appointment.setVisitType(visitType);
+
+        try {
+            return appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            throw translateIntegrityViolation(e);
+        }
+    }
+
+    // Helper: Report a second active appointment on the same day as a bad request and a virtual slot stored
+    // by a concurrent booking as a conflict, anything else as is
+    private RuntimeException translateIntegrityViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        String constraint = message != null ? message.toLowerCase(Locale.ROOT) : "";
+        if (constraint.contains(Appointment.ACTIVE_DAY_CONSTRAINT)) {
+            return new IllegalArgumentException(DUPLICATE_APPOINTMENT_MESSAGE, e);
+        }
+        if (constraint.contains(AppointmentSlot.DOCTOR_START_CONSTRAINT)) {
+            return new ConflictException("Slot is not available for booking.");
+        }
+        return e;
+    }
+
+    // Helper: Atomically reserve a free slot, or one whose hold has lapsed; losing the race is a conflict
+    private void claimSlot(AppointmentSlot slot) {
+        if (slotRepository.reserve(List.of(slot.getSlotId()), LocalDateTime.now(),
+                SlotStatus.AVAILABLE, SlotStatus.PENDING, SlotStatus.RESERVED) == 0) {
+            throw new ConflictException("Slot is not available for booking.");
+        }
+        detach(slot);
+    }
+
+    // Helper: Whether reserve would take the slot: free, or held by a hold that has lapsed
+    private boolean isBookable(AppointmentSlot slot, LocalDateTime now) {
+        return slot.getStatus().equals(SlotStatus.AVAILABLE) || (slot.getStatus().equals(SlotStatus.PENDING)
+                && slot.getHoldExpiresAt() != null && slot.getHoldExpiresAt().isBefore(now));
+    }
+
+    // Helper: Make a reserved slot bookable again
+    private void releaseSlot(AppointmentSlot slot) {
+        slotRepository.transitionStatus(slot.getSlotId(), SlotStatus.RESERVED, SlotStatus.AVAILABLE, LocalDateTime.now());
+        detach(slot);
+    }
+
+    // Helper: The slot updates bypass the persistence context, so a loaded slot still carries its old
+    // status and version. Detaching it keeps that stale copy from being flushed or read back later in
+    // the transaction; appointments can still reference it, only its ID is written.
+    private void detach(AppointmentSlot slot) {
+        entityManager.detach(slot);
+    }
+
+    // Helper: Find a slot by its doctor, date and start time, storing a virtual slot the first time it gets booked
+    private AppointmentSlot resolveSlot(Long doctorId, LocalDate date, LocalTime startTime) {
+        Optional<AppointmentSlot> stored = slotRepository.findByDoctor_DoctorIdAndDateAndStartTime(doctorId, date, startTime);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        if (!slotGenerationService.isVirtual()) {
+            throw new ResourceNotFoundException("Slot not found for doctor " + doctorId + " on " + date + " at " + startTime);
+        }
+        // Availability rules repeat every week, so they would also offer slots that have already started
+        if (LocalDateTime.of(date, startTime).isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Cannot book an appointment in the past.");
+        }
+
+        SlotKey key = slotGenerationService.computeSlots(availabilityRepository.findByDoctor_DoctorId(doctorId), date, date)
+                .stream()
+                .filter(candidate -> candidate.startTime().equals(startTime))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Doctor is not available at the requested time."));
+
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setDoctor(doctorRepository.findWithSpecialtyByDoctorId(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId)));
+        slot.setDate(key.date());
+        slot.setStartTime(key.startTime());
+        slot.setEndTime(key.endTime());
+        slot.setStatus(SlotStatus.AVAILABLE);
+        try {
+            return slotRepository.saveAndFlush(slot);
+        } catch (DataIntegrityViolationException e) {
+            throw translateIntegrityViolation(e);
+        }
+    }
+
     // Helper: Map Appointment to Response DTO
     private AppointmentResponse mapAppointmentToResponse(Appointment appointment) {
         try {
@@ -213,6 +671,8 @@ public class AppointmentService {
             response.setDate(appointment.getDate());
             response.setStatus(appointment.getStatus());
             response.setVisitType(appointment.getVisitType());
+            response.setRescheduledFromId(appointment.getRescheduledFrom() != null
+                    ? appointment.getRescheduledFrom().getAppointmentId() : null);
 
             // Safely handle null slot
             if (appointment.getSlot() != null) {
@@ -231,22 +691,5 @@ public class AppointmentService {
         }
     }
 
-    // Helper: Map Slot to Response DTO
-    private SlotResponse mapSlotToResponse(AppointmentSlot slot) {
-        try {
-            SlotResponse response = new SlotResponse();
-            response.setSlotId(slot.getSlotId());
-            response.setDoctorId(slot.getDoctor().getDoctorId());
-            response.setDoctorName(slot.getDoctor().getFirstName() + " " + slot.getDoctor().getLastName());
-            response.setDate(slot.getDate());
-            response.setStartTime(slot.getStartTime());
-            response.setEndTime(slot.getEndTime());
-            response.setStatus(SlotStatus.AVAILABLE);
-            return response;
-        } catch (Exception e) {
-            throw new RuntimeException("An error occurred while mapping the slot response.", e);
-        }
-    }
-
 
 }
@@ -0,0 +1,103 @@
+package york.medical.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import york.medical.exceptions.ConflictException;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Serializes bookings of the same doctor and day in memory so only one of them at a time
+// reaches the database, while other doctor-days proceed in parallel on their own stripes.
+@Component
+public class BookingCoordinator {
+
+    private final ReentrantLock[] locks;
+    private final AtomicInteger[] queueDepths;
+    private final Timer[] waitTimers;
+    private final long lockTimeoutMillis;
+
+    @Autowired
+    public BookingCoordinator(MeterRegistry meterRegistry,
+                              @Value("${medical.booking.stripes:64}") int stripes,
+                              @Value("${medical.booking.lock-timeout-millis:2000}") long lockTimeoutMillis) {
+        // A power of two lets the stripe be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.queueDepths = new AtomicInteger[size];
+        this.waitTimers = new Timer[size];
+        this.lockTimeoutMillis = lockTimeoutMillis;
+
+        for (int i = 0; i < size; i++) {
+            String stripe = String.valueOf(i);
+            locks[i] = new ReentrantLock(true);
+            queueDepths[i] = new AtomicInteger();
+            Gauge.builder("medical.booking.stripe.queue", queueDepths[i], AtomicInteger::get)
+                    .description("Bookings waiting for the stripe")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+            waitTimers[i] = Timer.builder("medical.booking.stripe.wait")
+                    .description("Time bookings waited for the stripe")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> T execute(Long doctorId, LocalDate date, Supplier<T> work) {
+        return locked(stripeFor(doctorId, date), work);
+    }
+
+    // A series spans several days, so it holds the stripe of every one of them.
+    // Stripes are always taken in index order, so two series sharing days cannot deadlock.
+    public <T> T execute(Long doctorId, Collection<LocalDate> dates, Supplier<T> work) {
+        int[] stripes = dates.stream().mapToInt(date -> stripeFor(doctorId, date)).distinct().sorted().toArray();
+        return lockedAll(stripes, 0, work);
+    }
+
+    private <T> T lockedAll(int[] stripes, int next, Supplier<T> work) {
+        if (next == stripes.length) {
+            return work.get();
+        }
+        return locked(stripes[next], () -> lockedAll(stripes, next + 1, work));
+    }
+
+    private <T> T locked(int stripe, Supplier<T> work) {
+        ReentrantLock lock = locks[stripe];
+
+        boolean acquired;
+        long start = System.nanoTime();
+        queueDepths[stripe].incrementAndGet();
+        try {
+            acquired = lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Booking was interrupted, please try again.");
+        } finally {
+            queueDepths[stripe].decrementAndGet();
+            waitTimers[stripe].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            throw new ConflictException("Too many bookings for this doctor right now, please try again.");
+        }
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripeFor(Long doctorId, LocalDate date) {
+        int hash = Objects.hash(doctorId, date);
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+}
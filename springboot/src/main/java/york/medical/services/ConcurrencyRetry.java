@@ -0,0 +1,81 @@
+package york.medical.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import york.medical.exceptions.ConflictException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs a unit of work in its own transaction and replays it when an optimistic version check fails.
+// Only use it for work that re-reads and re-validates everything it writes.
+@Component
+public class ConcurrencyRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    @Autowired
+    public ConcurrencyRetry(TransactionTemplate transactionTemplate,
+                            @Value("${medical.concurrency.max-attempts:3}") int maxAttempts,
+                            @Value("${medical.concurrency.backoff-millis:20}") long backoffMillis) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        return inTransaction(Supplier::get, work);
+    }
+
+    // Every attempt runs inside the guard, e.g. a lock, and the guard is left before backing off,
+    // so a retrying request does not keep others waiting while it sleeps
+    public <T> T inTransaction(Function<Supplier<T>, T> guard, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return guard.apply(() -> transactionTemplate.execute(status -> work.get()));
+            } catch (RuntimeException e) {
+                if (!isVersionConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    throw new ConflictException("The record was modified by another request, please try again.");
+                }
+                pause(attempt);
+            }
+        }
+    }
+
+    public void inTransactionWithoutResult(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Our services wrap some failures in a RuntimeException, so look through the causes
+    private boolean isVersionConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Exponential backoff with full jitter so retrying requests do not collide again
+    private void pause(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while retrying a conflicting update.");
+        }
+    }
+}
@@ -1,42 +1,77 @@
 package york.medical.services;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import york.medical.configuration.CachingConfig;
 import york.medical.dtos.requests.DoctorRequest;
+import york.medical.dtos.requests.DoctorRequest.AvailabilityRequest;
+import york.medical.dtos.responses.CursorPage;
 import york.medical.dtos.responses.DoctorResponse;
 import york.medical.dtos.responses.DoctorResponse.AvailabilityResponse;
-import york.medical.entities.AppointmentSlot;
 import york.medical.entities.Doctor;
 import york.medical.entities.DoctorAvailability;
 import york.medical.entities.Specialty;
+import york.medical.enums.DayOfWeek;
 import york.medical.enums.EmploymentStatus;
-import york.medical.enums.SlotStatus;
+import york.medical.exceptions.ConflictException;
 import york.medical.exceptions.ResourceNotFoundException;
 import york.medical.repositories.*;
 
-import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DoctorService {
 
+    // Doctors mapped together, and kept in the persistence context, while streaming the directory
+    private static final int EXPORT_BATCH_SIZE = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final DoctorRepository doctorRepository;
     private final SpecialtyRepository specialtyRepository;
     private final DoctorAvailabilityRepository availabilityRepository;
     private final AppointmentSlotRepository slotRepository;
+    private final SlotGenerationService slotGenerationService;
+    private final ConcurrencyRetry concurrencyRetry;
+    private final Pagination pagination;
+    private final StatsService statsService;
 
     @Autowired
     public DoctorService(DoctorRepository doctorRepository,
                          SpecialtyRepository specialtyRepository,
                          DoctorAvailabilityRepository availabilityRepository,
-                         AppointmentSlotRepository slotRepository) {
+                         AppointmentSlotRepository slotRepository,
+                         SlotGenerationService slotGenerationService,
+                         ConcurrencyRetry concurrencyRetry,
+                         Pagination pagination,
+                         StatsService statsService) {
         this.doctorRepository = doctorRepository;
         this.specialtyRepository = specialtyRepository;
         this.availabilityRepository = availabilityRepository;
         this.slotRepository = slotRepository;
+        this.slotGenerationService = slotGenerationService;
+        this.concurrencyRetry = concurrencyRetry;
+        this.pagination = pagination;
+        this.statsService = statsService;
     }
 
     // Get the count of all active doctors
@@ -44,21 +79,35 @@ public class DoctorService {
         return doctorRepository.countByEmploymentStatus(EmploymentStatus.ACTIVE);
     }
 
-    // Fetch all doctors
-    public List<DoctorResponse> getAllDoctors() {
+    // Version of everything the directory shows, cached and evicted together with the directory
+    @Cacheable(cacheNames = CachingConfig.DOCTOR_DIRECTORY, key = "'stamp'")
+    public ChangeStamp getDirectoryStamp() {
+        return doctorRepository.findChangeStamp()
+                .combine(specialtyRepository.findChangeStamp())
+                .combine(availabilityRepository.findChangeStamp());
+    }
+
+    // Fetch a page of doctors, optionally filtered by specialty and employment status
+    @Cacheable(cacheNames = CachingConfig.DOCTOR_DIRECTORY, key = "{'all', #specialtyId, #status, #cursor, #size}")
+    @Transactional(readOnly = true)
+    public CursorPage<DoctorResponse> getDoctors(Long specialtyId, EmploymentStatus status, String cursor, Integer size) {
+        String[] keys = Pagination.decodeCursor(cursor, 1);
+        Long afterId = keys == null ? 0L : parseCursorId(keys[0]);
+        int pageSize = pagination.pageSize(size);
         try {
-            return doctorRepository.findAll().stream()
-                    .map(this::mapToDoctorResponse)
-                    .collect(Collectors.toList());
+            List<Doctor> doctors = doctorRepository.findDirectoryPage(afterId, specialtyId, status, Pagination.lookAhead(pageSize));
+            return Pagination.toPage(doctors, pageSize, this::mapToDoctorResponses,
+                    doctor -> Pagination.encodeCursor(doctor.getDoctorId()));
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while fetching doctors.", e);
         }
     }
 
     // Fetch doctor by ID
+    @Cacheable(cacheNames = CachingConfig.DOCTOR, key = "#id")
     public DoctorResponse getDoctorById(Long id) {
         try {
-            Doctor doctor = doctorRepository.findById(id)
+            Doctor doctor = doctorRepository.findWithSpecialtyByDoctorId(id)
                     .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + id));
             return mapToDoctorResponse(doctor);
         } catch (Exception e) {
@@ -66,15 +115,49 @@ public class DoctorService {
         }
     }
 
-    // Fetch active doctors by Specialty ID
-    public List<DoctorResponse> getDoctorsBySpecialtyId(Long specialtyId) {
-        return doctorRepository.findBySpecialty_SpecialtyIdAndEmploymentStatus(specialtyId, EmploymentStatus.ACTIVE)
-                .stream()
-                .map(this::mapToDoctorResponse)
-                .collect(Collectors.toList());
+    // Fetch a page of the active doctors of a specialty
+    @Cacheable(cacheNames = CachingConfig.DOCTOR_DIRECTORY, key = "{'specialty', #specialtyId, #cursor, #size}")
+    @Transactional(readOnly = true)
+    public CursorPage<DoctorResponse> getDoctorsBySpecialtyId(Long specialtyId, String cursor, Integer size) {
+        return getDoctors(specialtyId, EmploymentStatus.ACTIVE, cursor, size);
+    }
+
+    // Stream the whole directory to the sink in id order without holding it in memory.
+    // Doctors are read through a database cursor and mapped in small batches, one availability
+    // query per batch, and the persistence context is cleared after every batch.
+    @Transactional(readOnly = true)
+    public void exportDoctors(Long specialtyId, EmploymentStatus status, Consumer<DoctorResponse> sink) {
+        try (Stream<Doctor> doctors = doctorRepository.streamDirectory(specialtyId, status)) {
+            List<Doctor> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+            doctors.forEach(doctor -> {
+                batch.add(doctor);
+                if (batch.size() == EXPORT_BATCH_SIZE) {
+                    exportBatch(batch, sink);
+                }
+            });
+            exportBatch(batch, sink);
+        }
+    }
+
+    private void exportBatch(List<Doctor> batch, Consumer<DoctorResponse> sink) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        mapToDoctorResponses(batch).forEach(sink);
+        batch.clear();
+        entityManager.clear();
+    }
+
+    private Long parseCursorId(String key) {
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor.", e);
+        }
     }
 
     // Create a new doctor with availability and slots
+    @CacheEvict(cacheNames = CachingConfig.DOCTOR_DIRECTORY, allEntries = true)
     @Transactional
     public DoctorResponse createDoctor(DoctorRequest doctorRequest) {
 
@@ -88,19 +171,22 @@ public class DoctorService {
             doctor.setEmploymentStatus(doctorRequest.getEmploymentStatus() != null ? doctorRequest.getEmploymentStatus() : EmploymentStatus.ACTIVE);
 
             Doctor savedDoctor = doctorRepository.save(doctor);
+            statsService.doctorStatusChanged(null, savedDoctor.getEmploymentStatus());
 
             // Generate Appointment Time Slots based on Availability
             if (doctorRequest.getAvailabilities() != null) {
-                doctorRequest.getAvailabilities().forEach(av -> {
-                    DoctorAvailability availability = new DoctorAvailability();
-                    availability.setDoctor(savedDoctor);
-                    availability.setDayOfWeek(av.getDayOfWeek());
-                    availability.setStartTime(av.getStartTime());
-                    availability.setEndTime(av.getEndTime());
-                    availabilityRepository.save(availability);
-
-                    generateTimeSlots(savedDoctor, availability);
-                });
+                List<DoctorAvailability> availabilities = doctorRequest.getAvailabilities().stream()
+                        .map(av -> {
+                            DoctorAvailability availability = new DoctorAvailability();
+                            availability.setDoctor(savedDoctor);
+                            availability.setDayOfWeek(av.getDayOfWeek());
+                            availability.setStartTime(av.getStartTime());
+                            availability.setEndTime(av.getEndTime());
+                            return availability;
+                        }).collect(Collectors.toList());
+                availabilityRepository.saveAll(availabilities);
+
+                slotGenerationService.generateSlots(savedDoctor, availabilities);
             }
 
             return mapToDoctorResponse(savedDoctor);
@@ -110,10 +196,27 @@ public class DoctorService {
     }
 
     // Update Doctor and Availability
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CachingConfig.DOCTOR_DIRECTORY, allEntries = true),
+            @CacheEvict(cacheNames = CachingConfig.DOCTOR, key = "#doctorId")
+    })
     @Transactional
     public DoctorResponse updateDoctor(Long doctorId, DoctorRequest doctorRequest) {
+        // Without the version the edit was made against, a stale edit could not be detected
+        if (doctorRequest.getVersion() == null) {
+            throw new IllegalArgumentException("version must be provided.");
+        }
         try {
-            return doctorRepository.findById(doctorId).map(existingDoctor -> {
+            return doctorRepository.findWithSpecialtyByDoctorId(doctorId).map(existingDoctor -> {
+                // Admin edits are never retried, a stale edit must be reviewed again
+                Long readVersion = existingDoctor.getVersion();
+                if (!doctorRequest.getVersion().equals(readVersion)) {
+                    throw new ConflictException("Doctor was modified by someone else, reload and try again.");
+                }
+
+                statsService.doctorStatusChanged(existingDoctor.getEmploymentStatus(),
+                        doctorRequest.getEmploymentStatus() != null ? doctorRequest.getEmploymentStatus() : existingDoctor.getEmploymentStatus());
+
                 existingDoctor.setFirstName(doctorRequest.getFirstName());
                 existingDoctor.setLastName(doctorRequest.getLastName());
                 existingDoctor.setEmploymentStatus(doctorRequest.getEmploymentStatus() != null ? doctorRequest.getEmploymentStatus() : existingDoctor.getEmploymentStatus());
@@ -127,36 +230,42 @@ public class DoctorService {
 
                 // Update Schedule
                 if (doctorRequest.getAvailabilities() != null) {
-                    availabilityRepository.deleteByDoctor_DoctorId(doctorId);
-                    doctorRequest.getAvailabilities().forEach(av -> {
-                        DoctorAvailability availability = new DoctorAvailability();
-                        availability.setDoctor(existingDoctor);
-                        availability.setDayOfWeek(av.getDayOfWeek());
-                        availability.setStartTime(av.getStartTime());
-                        availability.setEndTime(av.getEndTime());
-                        availabilityRepository.save(availability);
-
-                        generateTimeSlots(existingDoctor, availability);
-                    });
+                    updateSchedule(existingDoctor, doctorRequest.getAvailabilities());
                 }
 
-                return mapToDoctorResponse(doctorRepository.save(existingDoctor));
+                Doctor savedDoctor = doctorRepository.saveAndFlush(existingDoctor);
+                DoctorResponse response = mapToDoctorResponse(savedDoctor);
+
+                // A schedule-only edit leaves the doctor row clean, so its version is moved at commit instead
+                if (readVersion.equals(savedDoctor.getVersion())) {
+                    entityManager.lock(savedDoctor, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+                    response.setVersion(readVersion + 1);
+                }
+                return response;
             }).orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
+        } catch (ConflictException | OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while updating the doctor.", e);
         }
     }
 
     // Delete a doctor and clean up relations
-    @Transactional
+    // Deactivating is idempotent, so a version conflict is simply retried
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CachingConfig.DOCTOR_DIRECTORY, allEntries = true),
+            @CacheEvict(cacheNames = CachingConfig.DOCTOR, key = "#doctorId")
+    })
     public void deleteDoctor(Long doctorId) {
-
+        concurrencyRetry.inTransactionWithoutResult(() -> {
             Doctor doctor = doctorRepository.findById(doctorId)
                     .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
 
+            statsService.doctorStatusChanged(doctor.getEmploymentStatus(), EmploymentStatus.INACTIVE);
             doctor.setEmploymentStatus(EmploymentStatus.INACTIVE);
 
             doctorRepository.save(doctor);
+        });
 
 //        try {
 //            // Delete associated availabilities
@@ -173,42 +282,79 @@ public class DoctorService {
     }
 
 
-    // Generate Slots Based on Availability
-    private void generateTimeSlots(Doctor doctor, DoctorAvailability availability) {
-        try {
-            LocalDate today = LocalDate.now();
-            LocalDate endDate = today.plusMonths(1);
-
-            while (!today.isAfter(endDate)) {
-                if (today.getDayOfWeek().toString().equalsIgnoreCase(availability.getDayOfWeek().toString())) {
-                    LocalTime currentTime = availability.getStartTime();
-                    while (currentTime.isBefore(availability.getEndTime())) {
-                        LocalTime slotEndTime = currentTime.plusMinutes(30);
-                        if (slotEndTime.isAfter(availability.getEndTime())) break;
-
-                        if (!slotRepository.existsByDoctor_DoctorIdAndDateAndStartTimeAndEndTime(
-                                doctor.getDoctorId(), today, currentTime, slotEndTime)) {
-                            AppointmentSlot slot = new AppointmentSlot();
-                            slot.setDoctor(doctor);
-                            slot.setDate(today);
-                            slot.setStartTime(currentTime);
-                            slot.setEndTime(slotEndTime);
-                            slot.setStatus(SlotStatus.AVAILABLE);
-                            slotRepository.save(slot);
-                        }
-
-                        currentTime = slotEndTime;
-                    }
-                }
-                today = today.plusDays(1);
+    // Apply only the difference between the stored and the requested weekly schedule
+    private void updateSchedule(Doctor doctor, List<AvailabilityRequest> requested) {
+        Set<ScheduleWindow> requestedWindows = requested.stream()
+                .map(av -> new ScheduleWindow(av.getDayOfWeek(), av.getStartTime(), av.getEndTime()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        List<DoctorAvailability> current = new ArrayList<>();
+        List<DoctorAvailability> removed = new ArrayList<>();
+        Set<ScheduleWindow> storedWindows = new HashSet<>();
+        for (DoctorAvailability availability : availabilityRepository.findByDoctor_DoctorId(doctor.getDoctorId())) {
+            ScheduleWindow window = ScheduleWindow.of(availability);
+            if (requestedWindows.contains(window) && storedWindows.add(window)) {
+                current.add(availability);
+            } else {
+                removed.add(availability);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("An error occurred while generating time slots.", e);
         }
+
+        List<DoctorAvailability> added = requestedWindows.stream()
+                .filter(window -> !storedWindows.contains(window))
+                .map(window -> {
+                    DoctorAvailability availability = new DoctorAvailability();
+                    availability.setDoctor(doctor);
+                    availability.setDayOfWeek(window.dayOfWeek());
+                    availability.setStartTime(window.startTime());
+                    availability.setEndTime(window.endTime());
+                    return availability;
+                }).collect(Collectors.toList());
+
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        availabilityRepository.deleteAllInBatch(removed);
+        availabilityRepository.saveAll(added);
+        current.addAll(added);
+
+        Set<DayOfWeek> changedDays = EnumSet.noneOf(DayOfWeek.class);
+        removed.forEach(av -> changedDays.add(av.getDayOfWeek()));
+        added.forEach(av -> changedDays.add(av.getDayOfWeek()));
+
+        slotGenerationService.retireSlots(doctor, current, changedDays);
+        slotGenerationService.generateSlots(doctor, added);
+    }
+
+    // Weekly availability window, compared by value
+    private record ScheduleWindow(DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime) {
+        static ScheduleWindow of(DoctorAvailability availability) {
+            return new ScheduleWindow(availability.getDayOfWeek(), availability.getStartTime(), availability.getEndTime());
+        }
+    }
+
+    // Map a list of doctors, loading the availabilities of all of them with a single query
+    private List<DoctorResponse> mapToDoctorResponses(List<Doctor> doctors) {
+        if (doctors.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<DoctorAvailability>> availabilities = availabilityRepository
+                .findByDoctor_DoctorIdIn(doctors.stream().map(Doctor::getDoctorId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(av -> av.getDoctor().getDoctorId()));
+
+        return doctors.stream()
+                .map(doctor -> mapToDoctorResponse(doctor, availabilities.getOrDefault(doctor.getDoctorId(), List.of())))
+                .collect(Collectors.toList());
     }
 
     // Map Doctor entity to DoctorResponse DTO
     private DoctorResponse mapToDoctorResponse(Doctor doctor) {
+        return mapToDoctorResponse(doctor, availabilityRepository.findByDoctor_DoctorId(doctor.getDoctorId()));
+    }
+
+    private DoctorResponse mapToDoctorResponse(Doctor doctor, List<DoctorAvailability> availabilities) {
         try {
             DoctorResponse response = new DoctorResponse();
             response.setDoctorId(doctor.getDoctorId());
@@ -217,9 +363,9 @@ public class DoctorService {
             response.setSpecialtyName(doctor.getSpecialty() != null ? doctor.getSpecialty().getName() : null);
             response.setSpecialtyId(doctor.getSpecialty() != null ? doctor.getSpecialty().getSpecialtyId() : null);
             response.setEmploymentStatus(doctor.getEmploymentStatus());
+            response.setVersion(doctor.getVersion());
 
-            List<AvailabilityResponse> availabilityResponses = availabilityRepository
-                    .findByDoctor_DoctorId(doctor.getDoctorId()).stream()
+            List<AvailabilityResponse> availabilityResponses = availabilities.stream()
                     .map(av -> {
                         AvailabilityResponse availabilityResponse = new AvailabilityResponse();
                         availabilityResponse.setDayOfWeek(av.getDayOfWeek());
@@ -0,0 +1,108 @@
+package york.medical.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import york.medical.exceptions.ConflictException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+// Remembers the responses of write requests sent with an Idempotency-Key so a retried request
+// gets the first response back instead of being executed again.
+@Component
+public class IdempotencyStore {
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public IdempotencyStore(MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                            @Value("${medical.idempotency.max-keys:10000}") long maxKeys,
+                            @Value("${medical.idempotency.ttl-minutes:60}") long ttlMinutes) {
+        this.objectMapper = objectMapper;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency");
+        this.hits = Counter.builder("medical.idempotency.requests")
+                .description("Write requests answered from the idempotency store")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("medical.idempotency.requests")
+                .description("Write requests executed for a new idempotency key")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    // Run the request once per key and caller; the scope keeps the same key on different endpoints apart
+    public <T> ResponseEntity<T> execute(String key, Principal principal, String scope, Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        // Keys are chosen by the clients, so one caller must never be answered with another's response
+        String caller = principal != null ? principal.getName() : ANONYMOUS;
+        String cacheKey = caller + ":" + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        Entry pending = new Entry(fingerprint, null);
+        Entry existing = entries.asMap().putIfAbsent(cacheKey, pending);
+
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) {
+                throw new IllegalArgumentException("Idempotency-Key was already used for a different request.");
+            }
+            if (existing.response() == null) {
+                throw new ConflictException("A request with this Idempotency-Key is still being processed.");
+            }
+            hits.increment();
+            @SuppressWarnings("unchecked")
+            ResponseEntity<T> stored = (ResponseEntity<T>) existing.response();
+            return stored;
+        }
+
+        misses.increment();
+        try {
+            ResponseEntity<T> response = action.get();
+            entries.put(cacheKey, new Entry(fingerprint, response));
+            return response;
+        } catch (RuntimeException e) {
+            // A failed request may be retried with the same key
+            entries.asMap().remove(cacheKey, pending);
+            throw e;
+        }
+    }
+
+    // SHA-256 of the request as it is serialized, so different bodies cannot pass for the same request
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("An error occurred while fingerprinting the request.", e);
+        }
+    }
+
+    // A null response marks a request that is still running
+    private record Entry(String fingerprint, ResponseEntity<?> response) {
+    }
+}
@@ -0,0 +1,83 @@
+package york.medical.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import york.medical.dtos.responses.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Page sizes and cursors of the keyset-paginated lists. A cursor holds the sort key of the
+// last row of a page, so every page is a bounded index range scan whatever its depth.
+@Component
+public class Pagination {
+
+    private static final String SEPARATOR = "|";
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    @Autowired
+    public Pagination(@Value("${medical.pagination.default-size:50}") int defaultSize,
+                      @Value("${medical.pagination.max-size:200}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    // Requested page size, capped; the query fetches one extra row to know if a next page exists
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    public static Pageable lookAhead(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    public static String encodeCursor(Object... keys) {
+        StringBuilder value = new StringBuilder();
+        for (Object key : keys) {
+            if (!value.isEmpty()) {
+                value.append(SEPARATOR);
+            }
+            value.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Split a cursor back into its sort keys, null for the first page
+    public static String[] decodeCursor(String cursor, int keys) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+            if (parts.length != keys) {
+                throw new IllegalArgumentException("Invalid page cursor.");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor.", e);
+        }
+    }
+
+    // Drop the look-ahead row, map the page and point the cursor at its last row
+    public static <E, T> CursorPage<T> toPage(List<E> rows, int size, Function<List<E>, List<T>> mapper,
+                                              Function<E, String> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(mapper.apply(page), nextCursor, hasMore);
+    }
+}
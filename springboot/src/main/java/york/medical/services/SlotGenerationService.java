@@ -0,0 +1,168 @@
+package york.medical.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.DoctorAvailability;
+import york.medical.enums.DayOfWeek;
+import york.medical.enums.SlotMode;
+import york.medical.enums.SlotStatus;
+import york.medical.repositories.AppointmentSlotRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class SlotGenerationService {
+
+    public static final int SLOT_MINUTES = 30;
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SLOT_SQL =
+            "INSERT INTO appointment_slot (doctor_id, date, start_time, end_time, status, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private final AppointmentSlotRepository slotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotMode slotMode;
+    private final int horizonDays;
+
+    @Autowired
+    public SlotGenerationService(AppointmentSlotRepository slotRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${medical.slots.mode:MATERIALIZED}") SlotMode slotMode,
+                                 @Value("${medical.slots.horizon-days:30}") int horizonDays) {
+        this.slotRepository = slotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.slotMode = slotMode;
+        this.horizonDays = horizonDays;
+    }
+
+    // In virtual mode free slots are derived from the availability rules and never stored
+    public boolean isVirtual() {
+        return slotMode == SlotMode.VIRTUAL;
+    }
+
+    // Last day (inclusive) of the bookable window starting at the given day
+    public LocalDate horizonEnd(LocalDate from) {
+        return from.plusDays(horizonDays);
+    }
+
+    // Generate the missing slots of a doctor for the default window (today + horizon)
+    @Transactional
+    public int generateSlots(Doctor doctor, Collection<DoctorAvailability> availabilities) {
+        LocalDate today = LocalDate.now();
+        return generateSlots(doctor, availabilities, today, horizonEnd(today));
+    }
+
+    // Generate the missing slots of a doctor between two dates (inclusive).
+    // The whole slot set is computed in memory, the existing slots are loaded with a single
+    // range query and only the missing ones are written as batched inserts.
+    @Transactional
+    public int generateSlots(Doctor doctor, Collection<DoctorAvailability> availabilities, LocalDate from, LocalDate to) {
+        if (isVirtual() || availabilities == null || availabilities.isEmpty() || from.isAfter(to)) {
+            return 0;
+        }
+
+        List<SlotKey> candidates = computeSlots(availabilities, from, to);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Set<SlotKey> existing = new HashSet<>();
+        for (AppointmentSlot slot : slotRepository.findByDoctor_DoctorIdAndDateBetween(doctor.getDoctorId(), from, to)) {
+            existing.add(new SlotKey(slot.getDate(), slot.getStartTime(), slot.getEndTime()));
+        }
+
+        List<SlotKey> missing = new ArrayList<>();
+        for (SlotKey candidate : candidates) {
+            // The set also guards against overlapping availability windows producing the same slot twice
+            if (existing.add(candidate)) {
+                missing.add(candidate);
+            }
+        }
+
+        insertSlots(doctor.getDoctorId(), missing);
+        return missing.size();
+    }
+
+    // Remove the future, unbooked slots of the given week days that no longer fit the doctor's schedule.
+    // Reserved and held slots are never touched.
+    @Transactional
+    public int retireSlots(Doctor doctor, Collection<DoctorAvailability> schedule, Set<DayOfWeek> days) {
+        if (isVirtual() || days.isEmpty()) {
+            return 0;
+        }
+        LocalDate from = LocalDate.now();
+        LocalDate to = horizonEnd(from);
+
+        Set<SlotKey> valid = new HashSet<>(computeSlots(schedule, from, to));
+        List<Long> retired = new ArrayList<>();
+        for (AppointmentSlot slot : slotRepository.findByDoctor_DoctorIdAndStatusAndDateBetween(
+                doctor.getDoctorId(), SlotStatus.AVAILABLE, from, to)) {
+            boolean changedDay = days.stream().anyMatch(day -> day.name().equals(slot.getDate().getDayOfWeek().name()));
+            if (changedDay && !valid.contains(new SlotKey(slot.getDate(), slot.getStartTime(), slot.getEndTime()))) {
+                retired.add(slot.getSlotId());
+            }
+        }
+
+        int deleted = 0;
+        for (int i = 0; i < retired.size(); i += BATCH_SIZE) {
+            deleted += slotRepository.deleteUnreferencedByIdsAndStatus(
+                    retired.subList(i, Math.min(i + BATCH_SIZE, retired.size())), SlotStatus.AVAILABLE);
+        }
+        return deleted;
+    }
+
+    // Expand weekly availability windows into concrete slots between two dates (inclusive)
+    public List<SlotKey> computeSlots(Collection<DoctorAvailability> availabilities, LocalDate from, LocalDate to) {
+        List<SlotKey> slots = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            for (DoctorAvailability availability : availabilities) {
+                if (!day.getDayOfWeek().name().equals(availability.getDayOfWeek().name())) {
+                    continue;
+                }
+                LocalTime currentTime = availability.getStartTime();
+                while (currentTime.isBefore(availability.getEndTime())) {
+                    LocalTime slotEndTime = currentTime.plusMinutes(SLOT_MINUTES);
+                    // Stop at the end of the window, including a wrap past midnight
+                    if (slotEndTime.isAfter(availability.getEndTime()) || !slotEndTime.isAfter(currentTime)) break;
+
+                    slots.add(new SlotKey(day, currentTime, slotEndTime));
+                    currentTime = slotEndTime;
+                }
+            }
+        }
+        return slots;
+    }
+
+    private void insertSlots(Long doctorId, List<SlotKey> slots) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SLOT_SQL, slots, BATCH_SIZE, (ps, slot) -> {
+            ps.setLong(1, doctorId);
+            ps.setObject(2, slot.date());
+            ps.setObject(3, slot.startTime());
+            ps.setObject(4, slot.endTime());
+            ps.setString(5, SlotStatus.AVAILABLE.name());
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+        });
+    }
+
+    // Identity of a slot within a doctor's schedule
+    public record SlotKey(LocalDate date, LocalTime startTime, LocalTime endTime) {
+    }
+}
@@ -0,0 +1,183 @@
+package york.medical.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import york.medical.dtos.responses.SlotHorizonRunResponse;
+import york.medical.entities.Doctor;
+import york.medical.entities.DoctorAvailability;
+import york.medical.entities.JobCheckpoint;
+import york.medical.enums.EmploymentStatus;
+import york.medical.repositories.DoctorAvailabilityRepository;
+import york.medical.repositories.DoctorRepository;
+import york.medical.repositories.JobCheckpointRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+@Service
+public class SlotHorizonService {
+
+    static final String JOB_NAME = "slot-horizon";
+
+    private static final Logger log = LoggerFactory.getLogger(SlotHorizonService.class);
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityRepository availabilityRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final SlotGenerationService slotGenerationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Timer runTimer;
+    private final Counter generatedCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile SlotHorizonRunResponse lastRun;
+
+    @Autowired
+    public SlotHorizonService(DoctorRepository doctorRepository,
+                              DoctorAvailabilityRepository availabilityRepository,
+                              JobCheckpointRepository checkpointRepository,
+                              SlotGenerationService slotGenerationService,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${medical.slots.horizon-chunk-size:100}") int chunkSize) {
+        this.doctorRepository = doctorRepository;
+        this.availabilityRepository = availabilityRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.slotGenerationService = slotGenerationService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.runTimer = Timer.builder("medical.slots.horizon.run")
+                .description("Duration of the slot horizon runs")
+                .register(meterRegistry);
+        this.generatedCounter = Counter.builder("medical.slots.horizon.generated")
+                .description("Slots generated by the slot horizon runs")
+                .register(meterRegistry);
+    }
+
+    // Details of the last completed run, null until the job has run once
+    public SlotHorizonRunResponse getLastRun() {
+        return lastRun;
+    }
+
+    // Extend every active doctor's slots up to the horizon, resuming an interrupted run
+    @Scheduled(cron = "${medical.slots.horizon-cron:0 0 2 * * *}")
+    public void extendHorizon() {
+        if (slotGenerationService.isVirtual() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void run() {
+        LocalDate today = LocalDate.now();
+        LocalDate horizonEnd = slotGenerationService.horizonEnd(today);
+        long start = System.nanoTime();
+
+        SlotHorizonRunResponse run = new SlotHorizonRunResponse();
+        run.setStartedAt(LocalDateTime.now());
+        run.setHorizonEnd(horizonEnd);
+
+        JobCheckpoint checkpoint = transactionTemplate.execute(status -> startCheckpoint(horizonEnd));
+        Long lastDoctorId = checkpoint.getLastProcessedId();
+        if (lastDoctorId > 0) {
+            run.setResumedAfterDoctorId(lastDoctorId);
+        }
+
+        while (true) {
+            Long after = lastDoctorId;
+            ChunkResult chunk = transactionTemplate.execute(status -> processChunk(after, today, horizonEnd));
+            if (chunk.doctors() == 0) {
+                break;
+            }
+            run.setDoctorsProcessed(run.getDoctorsProcessed() + chunk.doctors());
+            run.setSlotsGenerated(run.getSlotsGenerated() + chunk.slots());
+            lastDoctorId = chunk.lastDoctorId();
+        }
+
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.findById(JOB_NAME).ifPresent(done -> {
+            done.setCompleted(true);
+            checkpointRepository.save(done);
+        }));
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        runTimer.record(duration);
+        generatedCounter.increment(run.getSlotsGenerated());
+
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMillis(duration.toMillis());
+        lastRun = run;
+
+        log.info("Slot horizon extended to {}: {} slots for {} doctors in {} ms.", horizonEnd, run.getSlotsGenerated(),
+                run.getDoctorsProcessed(), run.getDurationMillis());
+    }
+
+    // Continue an unfinished run towards the same horizon, otherwise start from the first doctor.
+    // Doctors an older interrupted run already covered only reach its horizon, so they need the new one too.
+    private JobCheckpoint startCheckpoint(LocalDate horizonEnd) {
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElseGet(() -> {
+            JobCheckpoint newCheckpoint = new JobCheckpoint();
+            newCheckpoint.setJobName(JOB_NAME);
+            return newCheckpoint;
+        });
+
+        if (checkpoint.isCompleted() || !horizonEnd.equals(checkpoint.getHorizonEnd())) {
+            checkpoint.setLastProcessedId(0L);
+            checkpoint.setItemsProcessed(0);
+            checkpoint.setCompleted(false);
+            checkpoint.setStartedAt(LocalDateTime.now());
+            checkpoint.setHorizonEnd(horizonEnd);
+        }
+        return checkpointRepository.save(checkpoint);
+    }
+
+    // Generate the slots of the next chunk of doctors and move the checkpoint in the same transaction
+    private ChunkResult processChunk(Long afterDoctorId, LocalDate from, LocalDate to) {
+        List<Doctor> doctors = doctorRepository.findByEmploymentStatusAndDoctorIdGreaterThanOrderByDoctorIdAsc(
+                EmploymentStatus.ACTIVE, afterDoctorId, PageRequest.of(0, chunkSize));
+        if (doctors.isEmpty()) {
+            return new ChunkResult(0, 0, afterDoctorId);
+        }
+
+        Map<Long, List<DoctorAvailability>> availabilities = availabilityRepository
+                .findByDoctor_DoctorIdIn(doctors.stream().map(Doctor::getDoctorId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(av -> av.getDoctor().getDoctorId()));
+
+        long slots = 0;
+        for (Doctor doctor : doctors) {
+            slots += slotGenerationService.generateSlots(doctor,
+                    availabilities.getOrDefault(doctor.getDoctorId(), List.of()), from, to);
+        }
+
+        Long lastDoctorId = doctors.get(doctors.size() - 1).getDoctorId();
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                .orElseThrow(() -> new IllegalStateException("Checkpoint missing for job " + JOB_NAME));
+        checkpoint.setLastProcessedId(lastDoctorId);
+        checkpoint.setItemsProcessed(checkpoint.getItemsProcessed() + slots);
+        checkpointRepository.save(checkpoint);
+
+        return new ChunkResult(doctors.size(), slots, lastDoctorId);
+    }
+
+    private record ChunkResult(int doctors, long slots, Long lastDoctorId) {
+    }
+}
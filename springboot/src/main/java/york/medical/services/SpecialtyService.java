@@ -2,10 +2,15 @@ package york.medical.services;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import york.medical.configuration.CachingConfig;
 import york.medical.entities.Specialty;
 import york.medical.exceptions.ResourceNotFoundException;
+import york.medical.repositories.ChangeStamp;
 import york.medical.repositories.SpecialtyRepository;
 
 import java.util.List;
@@ -14,10 +19,12 @@ import java.util.List;
 public class SpecialtyService {
 
     private final SpecialtyRepository specialtyRepository;
+    private final StatsService statsService;
 
     @Autowired
-    public SpecialtyService(SpecialtyRepository specialtyRepository) {
+    public SpecialtyService(SpecialtyRepository specialtyRepository, StatsService statsService) {
         this.specialtyRepository = specialtyRepository;
+        this.statsService = statsService;
     }
 
     // Get the specialties count
@@ -25,7 +32,14 @@ public class SpecialtyService {
         return specialtyRepository.count();
     }
 
+    // Version of the specialties, cached and evicted together with the list
+    @Cacheable(cacheNames = CachingConfig.SPECIALTIES, key = "'stamp'")
+    public ChangeStamp getChangeStamp() {
+        return specialtyRepository.findChangeStamp();
+    }
+
     // Fetch all specialties
+    @Cacheable(cacheNames = CachingConfig.SPECIALTIES, key = "'all'")
     public List<Specialty> getAllSpecialties() {
         try {
             return specialtyRepository.findAll();
@@ -35,6 +49,7 @@ public class SpecialtyService {
     }
 
     // Fetch specialty by ID
+    @Cacheable(cacheNames = CachingConfig.SPECIALTY, key = "#id")
     public Specialty getSpecialtyById(Long id) {
         try {
             return specialtyRepository.findById(id)
@@ -45,19 +60,28 @@ public class SpecialtyService {
     }
 
     // Create a new specialty
+    @CacheEvict(cacheNames = CachingConfig.SPECIALTIES, allEntries = true)
     @Transactional
     public Specialty createSpecialty(Specialty specialty) {
         try {
                 if (specialtyRepository.findByName(specialty.getName()).isPresent()) {
                     throw new IllegalArgumentException("Specialty with name '" + specialty.getName() + "' already exists.");
                 }
-                return specialtyRepository.save(specialty);
+                Specialty savedSpecialty = specialtyRepository.save(specialty);
+                statsService.specialtyCreated();
+                return savedSpecialty;
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while creating the specialty with ID: " + e);
         }
     }
 
-    // Update an existing specialty
+    // Update an existing specialty, doctors embed the specialty name so their caches go too
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CachingConfig.SPECIALTIES, allEntries = true),
+            @CacheEvict(cacheNames = CachingConfig.SPECIALTY, key = "#id"),
+            @CacheEvict(cacheNames = CachingConfig.DOCTOR_DIRECTORY, allEntries = true),
+            @CacheEvict(cacheNames = CachingConfig.DOCTOR, allEntries = true)
+    })
     @Transactional
     public Specialty updateSpecialty(Long id, Specialty updatedSpecialty) {
         try {
@@ -71,6 +95,10 @@ public class SpecialtyService {
     }
 
     // Delete a specialty by ID
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CachingConfig.SPECIALTIES, allEntries = true),
+            @CacheEvict(cacheNames = CachingConfig.SPECIALTY, key = "#id")
+    })
     @Transactional
     public void deleteSpecialty(Long id) {
         try {
@@ -78,6 +106,7 @@ public class SpecialtyService {
                 throw new ResourceNotFoundException("Specialty not found with ID: " + id);
             }
             specialtyRepository.deleteById(id);
+            statsService.specialtyDeleted();
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while deleting the specialty with ID: " + id, e);
         }
@@ -0,0 +1,117 @@
+package york.medical.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import york.medical.dtos.responses.StatsResponse;
+import york.medical.enums.AppointmentStatus;
+import york.medical.enums.EmploymentStatus;
+import york.medical.repositories.AppointmentRepository;
+import york.medical.repositories.DoctorRepository;
+import york.medical.repositories.SpecialtyRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Public home page statistics kept in memory. The write paths adjust the counters once their
+// transaction commits and a periodic reconcile re-counts them in the database to fix any drift.
+@Service
+public class StatsService {
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final SpecialtyRepository specialtyRepository;
+
+    private final AtomicLong activeDoctors = new AtomicLong();
+    private final AtomicLong activeAppointments = new AtomicLong();
+    private final AtomicLong specialties = new AtomicLong();
+    private volatile boolean loaded;
+    // Not synchronized: a virtual thread waiting on JDBC inside a monitor would pin its carrier thread
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    @Autowired
+    public StatsService(DoctorRepository doctorRepository,
+                        AppointmentRepository appointmentRepository,
+                        SpecialtyRepository specialtyRepository) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.specialtyRepository = specialtyRepository;
+    }
+
+    public StatsResponse getStats() {
+        if (!loaded) {
+            loadOnce();
+        }
+        StatsResponse statsResponse = new StatsResponse();
+        statsResponse.setDoctorsCount(activeDoctors.get());
+        statsResponse.setAppointmentsCount(activeAppointments.get());
+        statsResponse.setSpecialtiesCount(specialties.get());
+        return statsResponse;
+    }
+
+    // On a cold start the requests queued behind the first count use its result instead of counting again
+    private void loadOnce() {
+        reconcileLock.lock();
+        try {
+            if (!loaded) {
+                reconcile();
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    // Re-count everything in the database
+    @Scheduled(fixedDelayString = "${medical.stats.reconcile-millis:300000}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            activeDoctors.set(doctorRepository.countByEmploymentStatus(EmploymentStatus.ACTIVE));
+            activeAppointments.set(appointmentRepository.countByStatusNot(AppointmentStatus.CANCELLED));
+            specialties.set(specialtyRepository.count());
+            loaded = true;
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    public void appointmentsBooked(long count) {
+        afterCommit(() -> activeAppointments.addAndGet(count));
+    }
+
+    public void appointmentCancelled() {
+        afterCommit(activeAppointments::decrementAndGet);
+    }
+
+    public void doctorStatusChanged(EmploymentStatus from, EmploymentStatus to) {
+        boolean wasActive = from == EmploymentStatus.ACTIVE;
+        boolean isActive = to == EmploymentStatus.ACTIVE;
+        if (wasActive != isActive) {
+            afterCommit(() -> activeDoctors.addAndGet(isActive ? 1 : -1));
+        }
+    }
+
+    public void specialtyCreated() {
+        afterCommit(specialties::incrementAndGet);
+    }
+
+    public void specialtyDeleted() {
+        afterCommit(specialties::decrementAndGet);
+    }
+
+    // A rolled back write must not move the counters
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
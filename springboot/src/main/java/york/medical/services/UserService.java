@@ -1,8 +1,11 @@
 package york.medical.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import york.medical.configuration.CachingConfig;
 import york.medical.dtos.requests.UserRequest;
 import york.medical.entities.Auth;
 import york.medical.entities.Patient;
@@ -11,6 +14,8 @@ import york.medical.exceptions.ResourceNotFoundException;
 import york.medical.repositories.AuthRepository;
 import york.medical.repositories.PatientRepository;
 
+import java.util.Optional;
+
 @Service
 public class UserService {
 
@@ -23,14 +28,19 @@ public class UserService {
         this.patientRepository = patientRepository;
     }
 
+    // Patient profile with its auth record, in one query
     public Patient getPatientByOktaId(String oktaId) {
-        Auth auth = authRepository.findByOktaId(oktaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Patient not found for OKTA ID: " + oktaId));
-
-        return patientRepository.findByAuth_OktaId(auth.getOktaId())
+        return patientRepository.findByAuth_OktaId(oktaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient data not found for OKTA ID: " + oktaId));
     }
 
+    // Patient ID behind an Okta ID; only found IDs are cached, so a profile created later is picked up
+    @Cacheable(cacheNames = CachingConfig.PATIENT_ID, key = "#oktaId", unless = "#result == null")
+    public Optional<Long> findPatientId(String oktaId) {
+        return patientRepository.findPatientIdByOktaId(oktaId);
+    }
+
+    @CacheEvict(cacheNames = CachingConfig.PATIENT_ID, key = "#userRequest.oktaId")
     @Transactional
     public Patient createPatientProfile(UserRequest userRequest) {
         // Fetch or create the Auth record for the current user
@@ -0,0 +1,70 @@
+-- Tables exactly as the original entities mapped them, i.e. the schema Hibernate created in databases that
+-- predate the migrations. Those databases are baselined at this version and get every later migration.
+
+CREATE TABLE specialty (
+    specialty_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE doctor (
+    doctor_id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name        VARCHAR(255) NOT NULL,
+    last_name         VARCHAR(255) NOT NULL,
+    specialty_id      BIGINT       NOT NULL REFERENCES specialty (specialty_id),
+    employment_status VARCHAR(255) NOT NULL,
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE doctor_availability (
+    availability_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    doctor_id       BIGINT       NOT NULL REFERENCES doctor (doctor_id),
+    day_of_week     VARCHAR(255) NOT NULL,
+    start_time      TIME(6)      NOT NULL,
+    end_time        TIME(6)      NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    updated_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE auth (
+    user_id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    okta_id    VARCHAR(255) NOT NULL UNIQUE,
+    role       VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE patient (
+    patient_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT       NOT NULL UNIQUE REFERENCES auth (user_id),
+    first_name VARCHAR(255) NOT NULL,
+    last_name  VARCHAR(255) NOT NULL,
+    dob        DATE         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE appointment_slot (
+    slot_id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    doctor_id          BIGINT       NOT NULL REFERENCES doctor (doctor_id),
+    date               DATE         NOT NULL,
+    start_time         TIME(6)      NOT NULL,
+    end_time           TIME(6)      NOT NULL,
+    status             VARCHAR(255) NOT NULL,
+    created_at         TIMESTAMP(6) NOT NULL,
+    updated_at         TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE appointment (
+    appointment_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    patient_id     BIGINT       NOT NULL REFERENCES patient (patient_id),
+    slot_id        BIGINT UNIQUE REFERENCES appointment_slot (slot_id),
+    doctor_id      BIGINT       NOT NULL REFERENCES doctor (doctor_id),
+    date           DATE         NOT NULL,
+    visit_type     VARCHAR(255) NOT NULL,
+    status         VARCHAR(255) NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    updated_at     TIMESTAMP(6) NOT NULL
+);
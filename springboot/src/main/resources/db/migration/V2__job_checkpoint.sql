@@ -0,0 +1,10 @@
+-- Progress of the chunked slot horizon job, so a failed run resumes after the last finished chunk
+CREATE TABLE job_checkpoint (
+    job_name          VARCHAR(255) PRIMARY KEY,
+    last_processed_id BIGINT       NOT NULL,
+    items_processed   BIGINT       NOT NULL,
+    completed         BOOLEAN      NOT NULL,
+    started_at        TIMESTAMP(6) NOT NULL,
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,6 @@
+-- Optimistic lock versions of the rows written concurrently; existing rows start at version 0
+ALTER TABLE doctor ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE appointment_slot ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE appointment ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,4 @@
+-- A slot held while a patient fills in the booking form, released when the hold expires
+ALTER TABLE appointment_slot ADD COLUMN held_by_patient_id BIGINT;
+
+ALTER TABLE appointment_slot ADD COLUMN hold_expires_at TIMESTAMP(6);
@@ -0,0 +1,40 @@
+-- Indexes matched to the booking queries. Each one names the repository methods it serves.
+
+-- A doctor has at most one slot starting at a given time on a given day.
+-- Also serves the per-doctor day lookups: findByDoctor_DoctorIdAndDate, findByDoctor_DoctorIdAndDateAndStartTime,
+-- existsByDoctor_DoctorIdAndDateAndStartTimeAndEndTime, findByDoctor_DoctorIdAndDateBetween and the slot generator
+CREATE UNIQUE INDEX IF NOT EXISTS uk_slot_doctor_date_start ON appointment_slot (doctor_id, date, start_time);
+
+-- findByDoctor_DoctorIdAndDateAndStatus, findResponsesByDoctorAndDateAndStatus (ordered by start time)
+-- and findByDoctor_DoctorIdAndStatusAndDateBetween
+CREATE INDEX IF NOT EXISTS idx_slot_doctor_status_date ON appointment_slot (doctor_id, status, date, start_time);
+
+-- findEarliestBySpecialty walks the free slots of every doctor in time order
+CREATE INDEX IF NOT EXISTS idx_slot_status_date_time ON appointment_slot (status, date, start_time, doctor_id);
+
+-- findExpiredHolds
+CREATE INDEX IF NOT EXISTS idx_slot_status_hold_expiry ON appointment_slot (status, hold_expires_at);
+
+-- findByPatient_PatientId, findResponsesByPatientId, findPatientPage (newest first) and findChangeStampByPatientId
+CREATE INDEX IF NOT EXISTS idx_appointment_patient_date ON appointment (patient_id, date, appointment_id);
+
+-- The duplicate-appointment checks on patient, doctor and day
+CREATE INDEX IF NOT EXISTS idx_appointment_patient_doctor_date ON appointment (patient_id, doctor_id, date, status);
+
+-- streamResponses exports every appointment in (date, id) order
+CREATE INDEX IF NOT EXISTS idx_appointment_date ON appointment (date, appointment_id);
+
+-- Foreign key lookups when a doctor's appointments are joined or checked
+CREATE INDEX IF NOT EXISTS idx_appointment_doctor_date ON appointment (doctor_id, date);
+
+-- findByDoctor_DoctorId, findByDoctor_DoctorIdIn and findByDoctor_DoctorIdAndDayOfWeek
+CREATE INDEX IF NOT EXISTS idx_availability_doctor_day ON doctor_availability (doctor_id, day_of_week);
+
+-- findDirectoryPage and streamDirectory by specialty, findBySpecialty_SpecialtyIdAndEmploymentStatus
+CREATE INDEX IF NOT EXISTS idx_doctor_specialty_status ON doctor (specialty_id, employment_status, doctor_id);
+
+-- The slot horizon job pages through the active doctors in id order
+CREATE INDEX IF NOT EXISTS idx_doctor_status ON doctor (employment_status, doctor_id);
+
+-- findByName
+CREATE INDEX IF NOT EXISTS idx_specialty_name ON specialty (name);
@@ -0,0 +1,30 @@
+-- One active appointment per patient, doctor and day, enforced by the database.
+-- active_date mirrors date while the appointment is not cancelled and is null afterwards,
+-- so cancelled appointments never collide.
+ALTER TABLE appointment ADD COLUMN active_date DATE;
+
+-- Earlier releases could store a second active appointment for the same patient, doctor and day.
+-- The oldest one stays; the later ones are cancelled the way the application cancels an appointment,
+-- releasing their slots first, so the unique index below can be built.
+UPDATE appointment_slot SET status = 'AVAILABLE', version = version + 1, updated_at = CURRENT_TIMESTAMP
+WHERE status = 'RESERVED'
+  AND slot_id IN (SELECT a.slot_id FROM appointment a
+                  WHERE a.status <> 'CANCELLED'
+                    AND EXISTS (SELECT 1 FROM appointment kept
+                                WHERE kept.patient_id = a.patient_id AND kept.doctor_id = a.doctor_id
+                                  AND kept.date = a.date AND kept.status <> 'CANCELLED'
+                                  AND kept.appointment_id < a.appointment_id));
+
+UPDATE appointment SET status = 'CANCELLED', slot_id = NULL, version = version + 1, updated_at = CURRENT_TIMESTAMP
+WHERE status <> 'CANCELLED'
+  AND EXISTS (SELECT 1 FROM appointment kept
+              WHERE kept.patient_id = appointment.patient_id AND kept.doctor_id = appointment.doctor_id
+                AND kept.date = appointment.date AND kept.status <> 'CANCELLED'
+                AND kept.appointment_id < appointment.appointment_id);
+
+UPDATE appointment SET active_date = date WHERE status <> 'CANCELLED';
+
+CREATE UNIQUE INDEX uk_appointment_active_day ON appointment (patient_id, doctor_id, active_date);
+
+-- The duplicate check is now the unique index above
+DROP INDEX IF EXISTS idx_appointment_patient_doctor_date;
@@ -0,0 +1,7 @@
+-- A rescheduled appointment is cancelled and replaced; the replacement points back at it
+ALTER TABLE appointment ADD COLUMN rescheduled_from_id BIGINT;
+
+ALTER TABLE appointment ADD CONSTRAINT fk_appointment_rescheduled_from
+    FOREIGN KEY (rescheduled_from_id) REFERENCES appointment (appointment_id);
+
+CREATE INDEX idx_appointment_rescheduled_from ON appointment (rescheduled_from_id);
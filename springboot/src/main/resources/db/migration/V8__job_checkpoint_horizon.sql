@@ -0,0 +1,2 @@
+-- The horizon end a slot horizon run extends to, so an unfinished run is only resumed for the same target
+ALTER TABLE job_checkpoint ADD COLUMN horizon_end DATE;
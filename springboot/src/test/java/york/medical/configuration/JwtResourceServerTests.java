@@ -0,0 +1,228 @@
+package york.medical.configuration;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import york.medical.dtos.requests.UserRequest;
+import york.medical.services.UserService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Bearer requests are validated against a stub issuer's JWKS, fetched once, and never create a session.
+// The admin-only exports are checked against the token's groups claim.
+@SpringBootTest(properties = {
+        "medical.security.jwt.enabled=true",
+        "medical.security.jwt.audience=api://medical"
+})
+@AutoConfigureMockMvc
+class JwtResourceServerTests {
+
+    private static final int REQUESTS = 500;
+    private static final String KEY_ID = "test-key";
+    private static final KeyPair KEY_PAIR = generateKeyPair();
+    private static final AtomicInteger JWKS_FETCHES = new AtomicInteger();
+    private static final HttpServer ISSUER = startIssuer();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+
+    @DynamicPropertySource
+    static void issuerProperties(DynamicPropertyRegistry registry) {
+        registry.add("medical.security.jwt.jwk-set-uri", () -> issuerUrl() + "/keys");
+        registry.add("medical.security.jwt.issuer", JwtResourceServerTests::issuerUrl);
+    }
+
+    @AfterAll
+    static void stopIssuer() {
+        ISSUER.stop(0);
+    }
+
+    @Test
+    void bearerRequestsAreStatelessAndCheapAfterTheFirstKeyFetch() throws Exception {
+        UserRequest profile = new UserRequest();
+        profile.setOktaId("okta-jwt-1");
+        profile.setFirstName("Jane");
+        profile.setLastName("Doe");
+        profile.setDob(LocalDate.of(1990, 1, 1));
+        userService.createPatientProfile(profile);
+
+        String token = token("okta-jwt-1", issuerUrl(), Instant.now().plusSeconds(300));
+
+        MvcResult result = mockMvc.perform(get("/api/appointments/patient")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(result.getRequest().getSession(false)).isNull();
+        assertThat(result.getResponse().getHeader(HttpHeaders.SET_COOKIE)).isNull();
+
+        // Warm up both paths before timing them
+        for (int i = 0; i < 50; i++) {
+            mockMvc.perform(get("/api/specialties").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+            mockMvc.perform(get("/api/specialties"));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/api/specialties").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+        double bearerMicros = (System.nanoTime() - start) / 1_000.0 / REQUESTS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/api/specialties")).andExpect(status().isOk());
+        }
+        double anonymousMicros = (System.nanoTime() - start) / 1_000.0 / REQUESTS;
+
+        System.out.printf("GET /api/specialties over %d requests: %.0f us with a bearer JWT, %.0f us anonymous " +
+                "(%.0f us auth overhead), %d JWKS fetch(es)%n",
+                REQUESTS, bearerMicros, anonymousMicros, bearerMicros - anonymousMicros, JWKS_FETCHES.get());
+
+        assertThat(JWKS_FETCHES.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidTokensAreRejected() throws Exception {
+        Instant inFiveMinutes = Instant.now().plusSeconds(300);
+
+        mockMvc.perform(get("/api/specialties")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("okta-jwt-1", issuerUrl(), Instant.now().minusSeconds(300))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/specialties")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("okta-jwt-1", "https://someone-else.example", inFiveMinutes)))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/specialties")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void onlyAdminsCanExportAppointments() throws Exception {
+        Instant inFiveMinutes = Instant.now().plusSeconds(300);
+
+        mockMvc.perform(get("/api/appointments/export")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("okta-admin", issuerUrl(), inFiveMinutes, List.of("Admin"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/appointments/export")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("okta-jwt-1", issuerUrl(), inFiveMinutes, List.of("Patients"))))
+                .andExpect(status().isForbidden());
+
+        // Without a token the browser chain asks for a login instead of streaming the export
+        int anonymous = mockMvc.perform(get("/api/appointments/export")).andReturn().getResponse().getStatus();
+        assertThat(anonymous).isIn(302, 401, 403);
+    }
+
+    @Test
+    void theOktaIdIsReadFromTheUidClaimNotFromTheSubject() throws Exception {
+        UserRequest profile = new UserRequest();
+        profile.setOktaId("okta-jwt-2");
+        profile.setFirstName("John");
+        profile.setLastName("Roe");
+        profile.setDob(LocalDate.of(1990, 1, 1));
+        userService.createPatientProfile(profile);
+
+        // Okta access tokens carry the login in sub, so an ID found there must not pick the patient
+        JWTClaimsSet withoutUid = claims("okta-jwt-2", issuerUrl(), Instant.now().plusSeconds(300), List.of()).build();
+        mockMvc.perform(get("/api/appointments/patient")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + sign(withoutUid)))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/appointments/patient")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("okta-jwt-2", issuerUrl(), Instant.now().plusSeconds(300))))
+                .andExpect(status().isOk());
+    }
+
+    private static String token(String oktaId, String issuer, Instant expiresAt) throws Exception {
+        return token(oktaId, issuer, expiresAt, List.of());
+    }
+
+    // Shaped like an Okta access token: the login in sub, the user ID in uid
+    private static String token(String oktaId, String issuer, Instant expiresAt, List<String> groups) throws Exception {
+        return sign(claims(oktaId + "@example.com", issuer, expiresAt, groups).claim("uid", oktaId).build());
+    }
+
+    private static JWTClaimsSet.Builder claims(String subject, String issuer, Instant expiresAt, List<String> groups) {
+        return new JWTClaimsSet.Builder()
+                .subject(subject)
+                .claim("groups", groups)
+                .issuer(issuer)
+                .audience("api://medical")
+                .issueTime(Date.from(Instant.now().minusSeconds(600)))
+                .expirationTime(Date.from(expiresAt));
+    }
+
+    private static String sign(JWTClaimsSet claims) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).build(), claims);
+        jwt.sign(new RSASSASigner((RSAPrivateKey) KEY_PAIR.getPrivate()));
+        return jwt.serialize();
+    }
+
+    private static String issuerUrl() {
+        return "http://localhost:" + ISSUER.getAddress().getPort();
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Serves the public key as a JWKS document and counts how often it is fetched
+    private static HttpServer startIssuer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            byte[] jwks = new JWKSet(new RSAKey.Builder((RSAPublicKey) KEY_PAIR.getPublic()).keyID(KEY_ID).build())
+                    .toString().getBytes(StandardCharsets.UTF_8);
+            server.createContext("/keys", exchange -> {
+                JWKS_FETCHES.incrementAndGet();
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, jwks.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(jwks);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
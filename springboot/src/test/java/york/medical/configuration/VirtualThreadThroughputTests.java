@@ -0,0 +1,149 @@
+package york.medical.configuration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import york.medical.MedicalApplication;
+import york.medical.support.JdbcLatency;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Before/after throughput of the /api/appointments slot lookups on Tomcat's platform thread pool and on
+// virtual threads. Every statement is delayed by a database round trip so requests spend their time blocked
+// on JDBC. Both runs get the same connection pool, larger than Tomcat's default of 200 request threads.
+// The throughput is only printed, it depends too much on the machine to be asserted.
+@Tag("benchmark")
+class VirtualThreadThroughputTests {
+
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int POOL_SIZE = 300;
+    private static final long STATEMENT_LATENCY_MILLIS = 50;
+
+    @Test
+    void virtualThreadsServeBlockedRequestsBeyondThePlatformThreadPool() throws Exception {
+        Run platform = run(false);
+        Run virtual = run(true);
+
+        System.out.printf("%d requests from %d clients to /api/appointments/available(/next), %d connections, " +
+                        "%d ms per statement: %.0f req/s on platform threads, %.0f req/s on virtual threads (%.1fx)%n",
+                CLIENTS * REQUESTS_PER_CLIENT, CLIENTS, POOL_SIZE, STATEMENT_LATENCY_MILLIS,
+                platform.requestsPerSecond(), virtual.requestsPerSecond(),
+                virtual.requestsPerSecond() / platform.requestsPerSecond());
+
+        // Request handling and the scheduled jobs run on the threads of the selected mode only
+        assertThat(platform.virtualStatements()).isZero();
+        assertThat(platform.platformStatements()).isPositive();
+        assertThat(virtual.platformStatements()).isZero();
+        assertThat(virtual.virtualStatements()).isPositive();
+    }
+
+    private record Run(double requestsPerSecond, long platformStatements, long virtualStatements) {
+    }
+
+    private Run run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MedicalApplication.class, JdbcLatency.class)
+                .initializers(VirtualThreadThroughputTests::excludeTestConfigurations)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:throughput-" + mode + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.okta.spring=INFO",
+                        "--logging.level.org.springframework.security=INFO",
+                        "--logging.level.org.springframework.web=INFO")) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            List<HttpRequest> requests = slotLookups(context.getBean(JdbcTemplate.class), port);
+            JdbcLatency jdbcLatency = context.getBean(JdbcLatency.class);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            // Warm up without the database delay before timing
+            assertThat(load(client, requests)).isZero();
+
+            jdbcLatency.enable(STATEMENT_LATENCY_MILLIS);
+            long start = System.nanoTime();
+            int failures = load(client, requests);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            jdbcLatency.disable();
+
+            assertThat(failures).isZero();
+            return new Run(CLIENTS * REQUESTS_PER_CLIENT / seconds,
+                    jdbcLatency.platformStatements(), jdbcLatency.virtualStatements());
+        }
+    }
+
+    // Outside the test framework, component scanning would also pick up the other test configurations
+    private static void excludeTestConfigurations(ConfigurableApplicationContext context) {
+        context.getBeanFactory().registerSingleton("testConfigurationExcludeFilter", new TypeExcludeFilter() {
+            @Override
+            public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+                return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+            }
+        });
+    }
+
+    // Every client sends its requests one after the other; returns the number of requests that did not succeed
+    private int load(HttpClient client, List<HttpRequest> requests) {
+        AtomicInteger failures = new AtomicInteger();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int offset = c;
+                clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        try {
+                            HttpRequest request = requests.get((offset + i) % requests.size());
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        return failures.get();
+    }
+
+    // A day of one seeded doctor's free slots, and the earliest free slots of that doctor's specialty
+    private List<HttpRequest> slotLookups(JdbcTemplate jdbcTemplate, int port) {
+        String base = "http://localhost:" + port + "/api/appointments";
+        return jdbcTemplate.queryForObject("SELECT s.doctor_id, s.date, d.specialty_id " +
+                "FROM appointment_slot s JOIN doctor d ON d.doctor_id = s.doctor_id " +
+                "WHERE s.status = 'AVAILABLE' AND s.date >= CURRENT_DATE ORDER BY s.date, s.slot_id LIMIT 1", (rs, row) -> {
+            LocalDate date = rs.getObject("date", LocalDate.class);
+            return List.of(
+                    post(base + "/available", "{\"doctorId\":" + rs.getLong("doctor_id") + ",\"date\":\"" + date + "\"}"),
+                    post(base + "/available/next", "{\"specialtyId\":" + rs.getLong("specialty_id") +
+                            ",\"from\":\"" + date + "\",\"to\":\"" + date.plusDays(7) + "\",\"limit\":10}"));
+        });
+    }
+
+    // The CSRF check compares the XSRF-TOKEN cookie with the X-XSRF-TOKEN header
+    private HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .header("Cookie", "XSRF-TOKEN=benchmark")
+                .header("X-XSRF-TOKEN", "benchmark")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package york.medical.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import york.medical.configuration.CachingConfig;
+import york.medical.entities.Doctor;
+import york.medical.entities.Patient;
+import york.medical.repositories.ChangeStamp;
+import york.medical.repositories.SpecialtyRepository;
+import york.medical.services.AppointmentService;
+import york.medical.services.DoctorService;
+import york.medical.support.Fixtures;
+import york.medical.support.QueryCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Conditional GETs answer a matching If-None-Match from the change stamp alone, and writes move the stamp.
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import({QueryCounter.class, Fixtures.class})
+class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @SpyBean
+    private DoctorService doctorService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private SpecialtyRepository specialtyRepository;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private Fixtures fixtures;
+
+    @Test
+    void aMatchingETagIsAnsweredWithoutBuildingTheDirectory() throws Exception {
+        String etag = etagOf("/api/doctors");
+        // Without the cached page a 200 would have to call getDoctors
+        cacheManager.getCache(CachingConfig.DOCTOR_DIRECTORY).clear();
+        clearInvocations(doctorService);
+
+        mockMvc.perform(get("/api/doctors").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(doctorService).getDirectoryStamp();
+        verify(doctorService, never()).getDoctors(any(), any(), any(), any());
+    }
+
+    @Test
+    void aWriteChangesTheETag() throws Exception {
+        Doctor doctor = fixtures.doctor(specialtyRepository.findAll().get(0), "Etag", "Doctor");
+        String before = etagOf("/api/doctors");
+
+        doctorService.deleteDoctor(doctor.getDoctorId());
+
+        String after = mockMvc.perform(get("/api/doctors").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void theAppointmentStampReusesTheCachedDirectoryStamp() {
+        Patient patient = fixtures.patient("okta-conditional-get", "Jane", "Doe");
+        ChangeStamp first = appointmentService.getAppointmentsStamp(patient.getPatientId());
+
+        queryCounter.reset();
+        ChangeStamp second = appointmentService.getAppointmentsStamp(patient.getPatientId());
+
+        // Only the patient's appointments are read, the doctors come from the directory cache
+        assertThat(queryCounter.count()).isEqualTo(1);
+        assertThat(second).isEqualTo(first);
+    }
+
+    private String etagOf(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
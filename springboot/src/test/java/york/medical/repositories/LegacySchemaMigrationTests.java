@@ -0,0 +1,97 @@
+package york.medical.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A production database created by Hibernate before the migrations existed is baselined at V1 (as the prod
+// profile configures Flyway) and must end up with the same tables and columns as a newly migrated one.
+class LegacySchemaMigrationTests {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+    @Test
+    void aLegacyDatabaseIsBaselinedAndMigratedToTheCurrentSchema() {
+        DataSource legacy = dataSource("legacy-schema");
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy-schema.sql")).execute(legacy);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(legacy);
+        seedLegacyRows(jdbcTemplate);
+
+        MigrateResult result = Flyway.configure()
+                .dataSource(legacy)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        DataSource fresh = dataSource("fresh-schema");
+        Flyway.configure().dataSource(fresh).load().migrate();
+
+        // Every migration after the baseline runs
+        assertThat(result.migrationsExecuted).isEqualTo(6);
+        assertThat(columns(legacy)).isEqualTo(columns(fresh));
+
+        // The rows survive and get the defaults of the new columns
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM doctor", Long.class)).containsExactly(0L);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM appointment_slot WHERE held_by_patient_id IS NULL",
+                Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT status || ' ' || active_date || ' ' || slot_id || ' ' || version " +
+                "FROM appointment WHERE appointment_id = 1", String.class)).containsExactly("CONFIRMED " + DAY + " 1 0");
+        assertThat(jdbcTemplate.queryForList("SELECT status || ' ' || version FROM appointment_slot WHERE slot_id = 1",
+                String.class)).containsExactly("RESERVED 0");
+
+        // The later of two active appointments on the same day is cancelled and its slot released,
+        // otherwise the active day index could not be built
+        assertThat(jdbcTemplate.queryForList("SELECT status || ' ' || coalesce(active_date || '', '-') || ' ' || " +
+                "coalesce(slot_id || '', '-') || ' ' || version FROM appointment WHERE appointment_id = 2", String.class))
+                .containsExactly("CANCELLED - - 1");
+        assertThat(jdbcTemplate.queryForList("SELECT status || ' ' || version FROM appointment_slot WHERE slot_id = 2",
+                String.class)).containsExactly("AVAILABLE 1");
+    }
+
+    private void seedLegacyRows(JdbcTemplate jdbcTemplate) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO specialty (name, created_at, updated_at) VALUES ('Cardiology', ?, ?)", now, now);
+        jdbcTemplate.update("INSERT INTO doctor (first_name, last_name, specialty_id, employment_status, created_at, updated_at) " +
+                "VALUES ('John', 'Smith', 1, 'ACTIVE', ?, ?)", now, now);
+        jdbcTemplate.update("INSERT INTO doctor_availability (doctor_id, day_of_week, start_time, end_time, created_at, updated_at) " +
+                "VALUES (1, 'MONDAY', ?, ?, ?, ?)", LocalTime.of(9, 0), LocalTime.of(17, 0), now, now);
+        jdbcTemplate.update("INSERT INTO appointment_slot (doctor_id, date, start_time, end_time, status, created_at, updated_at) " +
+                "VALUES (1, ?, ?, ?, 'RESERVED', ?, ?)", DAY, LocalTime.of(9, 0), LocalTime.of(9, 30), now, now);
+        jdbcTemplate.update("INSERT INTO appointment_slot (doctor_id, date, start_time, end_time, status, created_at, updated_at) " +
+                "VALUES (1, ?, ?, ?, 'RESERVED', ?, ?)", DAY, LocalTime.of(9, 30), LocalTime.of(10, 0), now, now);
+        jdbcTemplate.update("INSERT INTO auth (okta_id, role, created_at, updated_at) VALUES ('okta-1', 'PATIENT', ?, ?)", now, now);
+        jdbcTemplate.update("INSERT INTO patient (user_id, first_name, last_name, dob, created_at, updated_at) " +
+                "VALUES (1, 'Jane', 'Doe', ?, ?, ?)", LocalDate.of(1990, 1, 1), now, now);
+        jdbcTemplate.update("INSERT INTO appointment (patient_id, slot_id, doctor_id, date, visit_type, status, created_at, updated_at) " +
+                "VALUES (1, 1, 1, ?, 'IN_PERSON', 'CONFIRMED', ?, ?)", DAY, now, now);
+        // A second active appointment on the same day, which the old application-side check let through
+        jdbcTemplate.update("INSERT INTO appointment (patient_id, slot_id, doctor_id, date, visit_type, status, created_at, updated_at) " +
+                "VALUES (1, 2, 1, ?, 'TELEHEALTH', 'CONFIRMED', ?, ?)", DAY, now, now);
+    }
+
+    // Every application column with its type and nullability
+    private List<String> columns(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForList(
+                "SELECT lower(table_name) || '.' || lower(column_name) || ' ' || data_type || ' ' || is_nullable " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_schema = 'PUBLIC' AND lower(table_name) <> 'flyway_schema_history' " +
+                        "ORDER BY 1", String.class);
+    }
+
+    private DataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+    }
+}
@@ -0,0 +1,192 @@
+package york.medical.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import york.medical.enums.AppointmentStatus;
+import york.medical.enums.DayOfWeek;
+import york.medical.enums.EmploymentStatus;
+import york.medical.enums.SlotStatus;
+import york.medical.support.QueryCounter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The migrated schema must give every hot booking query an index; checked with H2's EXPLAIN of the SQL
+// the repository methods actually send.
+@DataJpaTest
+@Import(QueryCounter.class)
+class SchemaIndexTests {
+
+    private static final int DOCTORS = 5;
+    private static final int DAYS = 20;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 7);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorAvailabilityRepository availabilityRepository;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private long specialtyId;
+    private long doctorId;
+    private long patientId;
+
+    @BeforeEach
+    void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO specialty (name, created_at, updated_at) VALUES ('Cardiology', ?, ?)", now, now);
+        specialtyId = jdbcTemplate.queryForObject("SELECT max(specialty_id) FROM specialty", Long.class);
+
+        for (int d = 0; d < DOCTORS; d++) {
+            jdbcTemplate.update("INSERT INTO doctor (first_name, last_name, specialty_id, employment_status, version, created_at, updated_at) " +
+                    "VALUES ('Doctor', ?, ?, 'ACTIVE', 0, ?, ?)", String.valueOf(d), specialtyId, now, now);
+            doctorId = jdbcTemplate.queryForObject("SELECT max(doctor_id) FROM doctor", Long.class);
+            jdbcTemplate.update("INSERT INTO doctor_availability (doctor_id, day_of_week, start_time, end_time, created_at, updated_at) " +
+                    "VALUES (?, 'MONDAY', ?, ?, ?, ?)", doctorId, LocalTime.of(9, 0), LocalTime.of(17, 0), now, now);
+
+            List<Object[]> slots = new ArrayList<>();
+            for (int day = 0; day < DAYS; day++) {
+                for (LocalTime time = LocalTime.of(9, 0); time.isBefore(LocalTime.of(17, 0)); time = time.plusMinutes(30)) {
+                    slots.add(new Object[]{doctorId, FIRST_DAY.plusDays(day), time, time.plusMinutes(30), now, now});
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO appointment_slot (doctor_id, date, start_time, end_time, status, version, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, 'AVAILABLE', 0, ?, ?)", slots);
+        }
+
+        jdbcTemplate.update("INSERT INTO auth (okta_id, role, created_at, updated_at) VALUES ('okta-1', 'PATIENT', ?, ?)", now, now);
+        long userId = jdbcTemplate.queryForObject("SELECT max(user_id) FROM auth", Long.class);
+        jdbcTemplate.update("INSERT INTO patient (user_id, first_name, last_name, dob, created_at, updated_at) " +
+                "VALUES (?, 'Jane', 'Doe', ?, ?, ?)", userId, LocalDate.of(1990, 1, 1), now, now);
+        patientId = jdbcTemplate.queryForObject("SELECT max(patient_id) FROM patient", Long.class);
+        jdbcTemplate.update("INSERT INTO appointment (patient_id, doctor_id, date, active_date, visit_type, status, version, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, 'IN_PERSON', 'CONFIRMED', 0, ?, ?)", patientId, doctorId, FIRST_DAY, FIRST_DAY, now, now);
+    }
+
+    @Test
+    void doctorDaySlotLookupsUseAnIndex() {
+        String[] doctorDay = {"idx_slot_doctor_status_date", "uk_slot_doctor_date_start"};
+        assertUsesIndex(captured(() -> slotRepository.findByDoctor_DoctorIdAndDateAndStatus(doctorId, FIRST_DAY, SlotStatus.AVAILABLE)),
+                doctorDay);
+        assertUsesIndex(captured(() -> slotRepository.findResponsesByDoctorAndDateAndStatus(doctorId, FIRST_DAY, SlotStatus.AVAILABLE)),
+                doctorDay);
+        assertUsesIndex(captured(() -> slotRepository.findByDoctor_DoctorIdAndDate(doctorId, FIRST_DAY)),
+                "uk_slot_doctor_date_start");
+        assertUsesIndex(captured(() -> slotRepository.findByDoctor_DoctorIdAndDateAndStartTime(doctorId, FIRST_DAY, LocalTime.of(9, 0))),
+                "uk_slot_doctor_date_start");
+        assertUsesIndex(captured(() -> slotRepository.existsByDoctor_DoctorIdAndDateAndStartTimeAndEndTime(
+                        doctorId, FIRST_DAY, LocalTime.of(9, 0), LocalTime.of(9, 30))),
+                "uk_slot_doctor_date_start");
+        assertUsesIndex(captured(() -> slotRepository.findByDoctor_DoctorIdAndStatusAndDateBetween(
+                        doctorId, SlotStatus.AVAILABLE, FIRST_DAY, FIRST_DAY.plusDays(7))),
+                "idx_slot_doctor_status_date");
+    }
+
+    @Test
+    void earliestFreeSlotSearchUsesAnIndex() {
+        // Either walks the free slots in time order, or the free slots of each doctor of the specialty
+        assertUsesIndex(captured(() -> slotRepository.findEarliestBySpecialty(specialtyId, EmploymentStatus.ACTIVE,
+                        SlotStatus.AVAILABLE, FIRST_DAY, FIRST_DAY.plusDays(DAYS), PageRequest.of(0, 10))),
+                "idx_slot_status_date_time", "idx_slot_doctor_status_date");
+    }
+
+    @Test
+    void expiredHoldSweepUsesAnIndex() {
+        assertUsesIndex(captured(() -> slotRepository.findExpiredHolds(SlotStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, 100))),
+                indexesStartingWith("appointment_slot", "status"));
+    }
+
+    @Test
+    void patientAppointmentLookupsUseAnIndex() {
+        // On PostgreSQL only idx_appointment_patient_date leads with the patient; H2 also indexes every foreign key
+        String[] byPatient = indexesStartingWith("appointment", "patient_id");
+        assertUsesIndex(captured(() -> appointmentRepository.findByPatient_PatientId(patientId)), byPatient);
+        assertUsesIndex(captured(() -> appointmentRepository.findResponsesByPatientId(patientId)), byPatient);
+        assertUsesIndex(captured(() -> appointmentRepository.findChangeStampByPatientId(patientId)), byPatient);
+        assertUsesIndex(captured(() -> appointmentRepository.findPatientPage(patientId, null, null, null, null, null,
+                PageRequest.of(0, 50))), byPatient);
+
+        // The active appointments of a patient with a doctor on given days, checked before booking a series
+        assertUsesIndex(captured(() -> appointmentRepository.findByPatient_PatientIdAndDoctor_DoctorIdAndDateInAndStatusNot(
+                        patientId, doctorId, List.of(FIRST_DAY), AppointmentStatus.CANCELLED)),
+                byPatient);
+    }
+
+    @Test
+    void aPatientCannotHaveTwoActiveAppointmentsWithADoctorOnTheSameDay() {
+        LocalDateTime now = LocalDateTime.now();
+        String insert = "INSERT INTO appointment (patient_id, doctor_id, date, active_date, visit_type, status, version, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, 'IN_PERSON', ?, 0, ?, ?)";
+
+        // Cancelled appointments have no active date and never collide
+        jdbcTemplate.update(insert, patientId, doctorId, FIRST_DAY, null, "CANCELLED", now, now);
+        jdbcTemplate.update(insert, patientId, doctorId, FIRST_DAY, null, "CANCELLED", now, now);
+
+        assertThatThrownBy(() -> jdbcTemplate.update(insert, patientId, doctorId, FIRST_DAY, FIRST_DAY, "CONFIRMED", now, now))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void availabilityLookupsUseAnIndex() {
+        assertUsesIndex(captured(() -> availabilityRepository.findByDoctor_DoctorIdAndDayOfWeek(doctorId, DayOfWeek.MONDAY)),
+                "idx_availability_doctor_day");
+        assertUsesIndex(captured(() -> availabilityRepository.findByDoctor_DoctorId(doctorId)),
+                indexesStartingWith("doctor_availability", "doctor_id"));
+    }
+
+    @Test
+    void aDoctorCannotHaveTwoSlotsStartingAtTheSameTime() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO appointment_slot " +
+                        "(doctor_id, date, start_time, end_time, status, version, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, 'AVAILABLE', 0, ?, ?)",
+                doctorId, FIRST_DAY, LocalTime.of(9, 0), LocalTime.of(9, 30), now, now))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    // The first statement a repository call sends, i.e. the SQL Hibernate generated for it
+    private QueryCounter.CapturedStatement captured(Runnable repositoryCall) {
+        queryCounter.reset();
+        repositoryCall.run();
+        assertThat(queryCounter.statements()).isNotEmpty();
+        return queryCounter.statements().get(0);
+    }
+
+    // EXPLAIN the statement with the parameters it was executed with
+    private void assertUsesIndex(QueryCounter.CapturedStatement statement, String... indexes) {
+        String plan = jdbcTemplate.query("EXPLAIN " + statement.sql(), preparedStatement -> {
+            for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+                preparedStatement.setObject(parameter.getKey(), parameter.getValue());
+            }
+        }, (ResultSetExtractor<String>) resultSet -> resultSet.next() ? resultSet.getString(1) : "").toLowerCase(Locale.ROOT);
+        assertThat(plan).as(statement.sql() + "\n" + plan).doesNotContain("tablescan");
+        assertThat(indexes).as(statement.sql() + "\n" + plan).anyMatch(plan::contains);
+    }
+
+    // Names of the indexes of a table whose first column is the given one
+    private String[] indexesStartingWith(String table, String column) {
+        return jdbcTemplate.queryForList("SELECT lower(index_name) FROM information_schema.index_columns " +
+                        "WHERE lower(table_name) = ? AND lower(column_name) = ? AND ordinal_position = 1",
+                String.class, table, column).toArray(String[]::new);
+    }
+}
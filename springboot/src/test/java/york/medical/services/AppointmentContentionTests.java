@@ -0,0 +1,140 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import york.medical.dtos.requests.AppointmentRequest;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.Patient;
+import york.medical.enums.SlotStatus;
+import york.medical.exceptions.ConflictException;
+import york.medical.repositories.AppointmentRepository;
+import york.medical.repositories.AppointmentSlotRepository;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fires concurrent bookings at one slot; the slot claim must let exactly one through and turn
+// every other attempt into a 409, never a raw database locking failure.
+@ServiceTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentContentionTests {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+    @Autowired
+    private Fixtures fixtures;
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void concurrentBookingsOfOneSlotHaveExactlyOneWinner() throws Exception {
+        Doctor doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        AppointmentSlot slot = fixtures.slot(doctor, LocalDate.now().plusDays(1), LocalTime.of(9, 0), SlotStatus.AVAILABLE);
+
+        List<AppointmentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            requests.add(fixtures.booking(fixtures.patient("okta-" + i, "Patient", String.valueOf(i)), slot));
+        }
+
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger losers = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (AppointmentRequest request : requests) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.createAppointment(request);
+                    winners.incrementAndGet();
+                } catch (ConflictException e) {
+                    losers.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        executor.shutdown();
+
+        System.out.printf("%d concurrent bookings of one slot: %d won, %d rejected in %.1f ms (%.0f attempts/s)%n",
+                THREADS, winners.get(), losers.get(), seconds * 1000, THREADS / seconds);
+
+        assertThat(winners.get()).isEqualTo(1);
+        assertThat(losers.get()).isEqualTo(THREADS - 1);
+        assertThat(appointmentRepository.count()).isEqualTo(1);
+        assertThat(slotRepository.findById(slot.getSlotId()).orElseThrow().getStatus()).isEqualTo(SlotStatus.RESERVED);
+    }
+
+    @Test
+    void aPatientBookingTwoSlotsOfADoctorDayAtOnceGetsOneAppointment() throws Exception {
+        Doctor doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        Patient patient = fixtures.patient("okta-0", "Jane", "Doe");
+        List<AppointmentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            AppointmentSlot slot = fixtures.slot(doctor, LocalDate.now().plusDays(1), LocalTime.of(9, 0).plusMinutes(30L * i),
+                    SlotStatus.AVAILABLE);
+            requests.add(fixtures.booking(patient, slot));
+        }
+
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (AppointmentRequest request : requests) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.createAppointment(request);
+                    winners.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    duplicates.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(winners.get()).isEqualTo(1);
+        assertThat(duplicates.get()).isEqualTo(1);
+        assertThat(appointmentRepository.count()).isEqualTo(1);
+        // The losing request rolled back its slot claim
+        assertThat(slotRepository.findAll()).extracting(AppointmentSlot::getStatus)
+                .containsExactlyInAnyOrder(SlotStatus.RESERVED, SlotStatus.AVAILABLE);
+    }
+}
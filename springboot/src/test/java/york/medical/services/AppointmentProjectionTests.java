@@ -0,0 +1,80 @@
+package york.medical.services;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.dtos.responses.SlotResponse;
+import york.medical.entities.Doctor;
+import york.medical.entities.Patient;
+import york.medical.enums.AppointmentStatus;
+import york.medical.enums.SlotStatus;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The appointment read endpoints are served from projections and leave the persistence context empty.
+@ServiceTest
+class AppointmentProjectionTests {
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private Fixtures fixtures;
+
+    private Patient patient;
+    private Doctor doctor;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        patient = fixtures.patient("okta-1", "Jane", "Doe");
+
+        day = LocalDate.now().plusDays(1);
+        fixtures.appointment(patient, fixtures.slot(doctor, day, LocalTime.of(9, 0), SlotStatus.RESERVED));
+        fixtures.slot(doctor, day, LocalTime.of(9, 30), SlotStatus.AVAILABLE);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void appointmentsAreReadWithoutManagedEntities() {
+        List<AppointmentResponse> appointments = appointmentService.getAllAppointmentsByPatientId(patient.getPatientId());
+
+        assertThat(appointments).singleElement().satisfies(appointment -> {
+            assertThat(appointment.getPatientName()).isEqualTo("Jane Doe");
+            assertThat(appointment.getDoctorName()).isEqualTo("John Smith");
+            assertThat(appointment.getSpecialtyId()).isEqualTo(doctor.getSpecialty().getSpecialtyId());
+            assertThat(appointment.getStartTime()).isEqualTo(LocalTime.of(9, 0));
+            assertThat(appointment.getStatus()).isEqualTo(AppointmentStatus.CONFIRMED);
+        });
+        assertThat(managedEntities()).isZero();
+    }
+
+    @Test
+    void availableSlotsAreReadWithoutManagedEntities() {
+        List<SlotResponse> slots = appointmentService.getAvailableSlots(doctor.getDoctorId(), day);
+
+        assertThat(slots).singleElement().satisfies(slot -> {
+            assertThat(slot.getStartTime()).isEqualTo(LocalTime.of(9, 30));
+            assertThat(slot.getDoctorName()).isEqualTo("John Smith");
+            assertThat(slot.getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+        });
+        assertThat(managedEntities()).isZero();
+    }
+
+    private int managedEntities() {
+        return entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount();
+    }
+}
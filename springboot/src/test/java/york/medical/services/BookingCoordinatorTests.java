@@ -0,0 +1,156 @@
+package york.medical.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import york.medical.exceptions.ConflictException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The doctor-day stripes, their queue and wait metrics, and how they combine with the retried transaction.
+class BookingCoordinatorTests {
+
+    private static final Long DOCTOR_ID = 1L;
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void bookingsOfTheSameDoctorDayQueueAndTheWaitIsRecorded() throws Exception {
+        BookingCoordinator coordinator = new BookingCoordinator(meterRegistry, 64, 5000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> first = executor.submit(() -> coordinator.execute(DOCTOR_ID, DAY, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicInteger secondRan = new AtomicInteger();
+        Future<?> second = executor.submit(() -> coordinator.execute(DOCTOR_ID, DAY, secondRan::incrementAndGet));
+        awaitQueueDepth(1);
+        assertThat(secondRan.get()).isZero();
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(secondRan.get()).isEqualTo(1);
+        assertThat(queueDepth()).isZero();
+        assertThat(meterRegistry.find("medical.booking.stripe.wait").timers().stream().mapToLong(Timer::count).sum())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void aBookingThatCannotGetTheStripeInTimeIsAConflict() throws Exception {
+        BookingCoordinator coordinator = new BookingCoordinator(meterRegistry, 64, 50);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> coordinator.execute(DOCTOR_ID, DAY, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> coordinator.execute(DOCTOR_ID, DAY, () -> null)).isInstanceOf(ConflictException.class);
+        assertThat(queueDepth()).isZero();
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void aSeriesHoldsTheStripeOfEveryOneOfItsDays() throws Exception {
+        BookingCoordinator coordinator = new BookingCoordinator(meterRegistry, 64, 50);
+        List<LocalDate> days = List.of(DAY, DAY.plusWeeks(1), DAY.plusWeeks(2));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> series = executor.submit(() -> coordinator.execute(DOCTOR_ID, days, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (LocalDate day : days) {
+            assertThatThrownBy(() -> coordinator.execute(DOCTOR_ID, day, () -> null)).isInstanceOf(ConflictException.class);
+        }
+
+        release.countDown();
+        series.get(5, TimeUnit.SECONDS);
+        assertThat(coordinator.execute(DOCTOR_ID, days.get(1), () -> "booked")).isEqualTo("booked");
+    }
+
+    @Test
+    void aRetriedBookingLetsTheQueueThroughBeforeItsNextAttempt() throws Exception {
+        BookingCoordinator coordinator = new BookingCoordinator(meterRegistry, 64, 5000);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:booking-coordinator;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        ConcurrencyRetry retry = new ConcurrencyRetry(new TransactionTemplate(new DataSourceTransactionManager(dataSource)), 2, 1);
+
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        String result = retry.inTransaction(attempt -> coordinator.execute(DOCTOR_ID, DAY, attempt), () -> {
+            if (attempts.incrementAndGet() == 1) {
+                // Another booking queues behind the first attempt, which then loses a version check
+                executor.submit(() -> coordinator.execute(DOCTOR_ID, DAY, () -> {
+                    queuedRan.countDown();
+                    return null;
+                }));
+                awaitQueueDepth(1);
+                throw new OptimisticLockingFailureException("stale version");
+            }
+            // Had the stripe been kept across the backoff, the queued booking could not have run yet
+            return queuedRan.getCount() == 0 ? "after the queued booking" : "before the queued booking";
+        });
+
+        assertThat(result).isEqualTo("after the queued booking");
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    private double queueDepth() {
+        return meterRegistry.find("medical.booking.stripe.queue").gauges().stream().mapToDouble(Gauge::value).sum();
+    }
+
+    private void awaitQueueDepth(int depth) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queueDepth() != depth) {
+            assertThat(System.nanoTime()).as("queue depth %d reached in time", depth).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import york.medical.exceptions.ConflictException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Version conflicts are replayed a bounded number of times, everything else fails straight away.
+class ConcurrencyRetryTests {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ConcurrencyRetry retry = new ConcurrencyRetry(new TransactionTemplate(new DataSourceTransactionManager(
+            new DriverManagerDataSource("jdbc:h2:mem:concurrency-retry;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", ""))),
+            MAX_ATTEMPTS, 1);
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void aVersionConflictIsRetriedUntilAnAttemptSucceeds() {
+        String result = retry.inTransaction(() -> {
+            if (attempts.incrementAndGet() < MAX_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("stale version");
+            }
+            return "booked";
+        });
+
+        assertThat(result).isEqualTo("booked");
+        assertThat(attempts.get()).isEqualTo(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void aConflictThatOutlastsEveryAttemptIsReportedAsAConflict() {
+        assertThatThrownBy(() -> retry.inTransaction(() -> {
+            attempts.incrementAndGet();
+            // Wrapped the way the mapping helpers wrap their failures
+            throw new RuntimeException(new OptimisticLockingFailureException("stale version"));
+        })).isInstanceOf(ConflictException.class);
+
+        assertThat(attempts.get()).isEqualTo(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        assertThatThrownBy(() -> retry.inTransaction(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Slot not found");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+}
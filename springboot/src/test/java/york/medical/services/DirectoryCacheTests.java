@@ -0,0 +1,71 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import york.medical.configuration.CachingConfig;
+import york.medical.dtos.requests.DoctorRequest;
+import york.medical.dtos.responses.DoctorResponse;
+import york.medical.entities.Doctor;
+import york.medical.entities.Specialty;
+import york.medical.support.Fixtures;
+import york.medical.support.QueryCounter;
+import york.medical.support.ServiceTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Directory reads are served from the cache until an admin write evicts them.
+@ServiceTest(properties = {
+        "spring.cache.type=caffeine",
+        "spring.cache.cache-names=specialties,specialty,doctorDirectory,doctor,patientId",
+        "spring.cache.caffeine.spec=maximumSize=100,recordStats"
+})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@Import(CachingConfig.class)
+class DirectoryCacheTests {
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private SpecialtyService specialtyService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private Fixtures fixtures;
+
+    @Test
+    void repeatedReadsSkipTheDatabaseUntilAWriteEvictsThem() {
+        Specialty specialty = fixtures.specialty("Cardiology");
+        Doctor doctor = fixtures.doctor(specialty, "John", "Smith");
+        entityManager.flush();
+
+        doctorService.getDoctorsBySpecialtyId(specialty.getSpecialtyId(), null, null);
+        specialtyService.getAllSpecialties();
+
+        queryCounter.reset();
+        assertThat(doctorService.getDoctorsBySpecialtyId(specialty.getSpecialtyId(), null, null).getItems()).hasSize(1);
+        assertThat(specialtyService.getAllSpecialties()).hasSize(1);
+        assertThat(queryCounter.count()).isZero();
+
+        DoctorRequest request = new DoctorRequest();
+        request.setFirstName("Jonathan");
+        request.setLastName("Smith");
+        request.setVersion(doctor.getVersion());
+        doctorService.updateDoctor(doctor.getDoctorId(), request);
+
+        queryCounter.reset();
+        DoctorResponse updated = doctorService.getDoctorsBySpecialtyId(specialty.getSpecialtyId(), null, null).getItems().get(0);
+        assertThat(updated.getFirstName()).isEqualTo("Jonathan");
+        assertThat(queryCounter.count()).isPositive();
+
+        // Doctor writes leave the specialty list cached
+        queryCounter.reset();
+        specialtyService.getAllSpecialties();
+        assertThat(queryCounter.count()).isZero();
+    }
+}
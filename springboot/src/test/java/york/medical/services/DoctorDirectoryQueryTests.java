@@ -0,0 +1,130 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import york.medical.dtos.responses.CursorPage;
+import york.medical.dtos.responses.DoctorResponse;
+import york.medical.entities.Doctor;
+import york.medical.entities.Specialty;
+import york.medical.enums.DayOfWeek;
+import york.medical.support.Fixtures;
+import york.medical.support.QueryCounter;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The doctor directory must cost the same number of queries however many doctors are listed.
+@ServiceTest
+class DoctorDirectoryQueryTests {
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private Fixtures fixtures;
+
+    @Test
+    void listingDoctorsUsesAFixedNumberOfQueries() {
+        Specialty cardiology = fixtures.specialty("Cardiology");
+        Specialty dermatology = fixtures.specialty("Dermatology");
+
+        createDoctors(cardiology, 5);
+        createDoctors(dermatology, 5);
+        long smallList = countListingQueries(cardiology);
+
+        createDoctors(cardiology, 40);
+        createDoctors(dermatology, 40);
+        long largeList = countListingQueries(cardiology);
+
+        // Doctors with their specialty, then the availabilities of all of them
+        assertThat(smallList).isLessThanOrEqualTo(4);
+        assertThat(largeList).isEqualTo(smallList);
+    }
+
+    @Test
+    void listedDoctorsKeepTheirOwnAvailabilities() {
+        Specialty cardiology = fixtures.specialty("Cardiology");
+        createDoctors(cardiology, 3);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<DoctorResponse> doctors = doctorService.getDoctors(null, null, null, null).getItems();
+
+        assertThat(doctors).hasSize(3);
+        assertThat(doctors).allSatisfy(doctor -> {
+            assertThat(doctor.getSpecialtyName()).isEqualTo("Cardiology");
+            assertThat(doctor.getAvailabilities()).hasSize(2);
+        });
+    }
+
+    @Test
+    void pagingThroughTheDirectoryVisitsEveryDoctorOnce() {
+        Specialty cardiology = fixtures.specialty("Cardiology");
+        Specialty dermatology = fixtures.specialty("Dermatology");
+        createDoctors(cardiology, 12);
+        createDoctors(dermatology, 8);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<DoctorResponse> page = doctorService.getDoctorsBySpecialtyId(cardiology.getSpecialtyId(), cursor, 5);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(5);
+            page.getItems().forEach(doctor -> seen.add(doctor.getDoctorId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(12).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void exportStreamsEveryDoctorWithABoundedNumberOfQueries() {
+        Specialty cardiology = fixtures.specialty("Cardiology");
+        Specialty dermatology = fixtures.specialty("Dermatology");
+        createDoctors(cardiology, 250);
+        createDoctors(dermatology, 200);
+        entityManager.flush();
+        entityManager.clear();
+
+        queryCounter.reset();
+        List<DoctorResponse> exported = new ArrayList<>();
+        doctorService.exportDoctors(null, null, exported::add);
+
+        assertThat(exported).hasSize(450);
+        assertThat(exported).extracting(DoctorResponse::getDoctorId).doesNotHaveDuplicates().isSorted();
+        assertThat(exported).allSatisfy(doctor -> assertThat(doctor.getAvailabilities()).hasSize(2));
+        // One cursor over the doctors, then one availability query per batch of 200
+        assertThat(queryCounter.count()).isLessThanOrEqualTo(4);
+    }
+
+    // Queries of both directory listings, starting from an empty persistence context
+    private long countListingQueries(Specialty specialty) {
+        entityManager.flush();
+        entityManager.clear();
+        queryCounter.reset();
+        doctorService.getDoctors(null, null, null, 200);
+        long allDoctors = queryCounter.count();
+
+        entityManager.clear();
+        queryCounter.reset();
+        doctorService.getDoctorsBySpecialtyId(specialty.getSpecialtyId(), null, 200);
+        return Math.max(allDoctors, queryCounter.count());
+    }
+
+    private void createDoctors(Specialty specialty, int count) {
+        for (int i = 0; i < count; i++) {
+            Doctor doctor = fixtures.doctor(specialty, "Doctor", String.valueOf(i));
+            fixtures.availability(doctor, DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(12, 0));
+            fixtures.availability(doctor, DayOfWeek.THURSDAY, LocalTime.of(9, 0), LocalTime.of(12, 0));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import york.medical.dtos.requests.DoctorRequest;
+import york.medical.dtos.responses.DoctorResponse;
+import york.medical.entities.Doctor;
+import york.medical.exceptions.ConflictException;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Admin edits carry the version they were made against and are rejected once the doctor moved on.
+@ServiceTest
+class DoctorServiceTests {
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private Fixtures fixtures;
+
+    @Test
+    void anEditMadeAgainstAnOlderVersionIsAConflict() {
+        Doctor doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        entityManager.flush();
+        Long readVersion = doctor.getVersion();
+
+        DoctorResponse first = doctorService.updateDoctor(doctor.getDoctorId(), request("Jonathan", readVersion));
+        assertThat(first.getVersion()).isGreaterThan(readVersion);
+
+        // A second admin still holds the version read before the first edit
+        assertThatThrownBy(() -> doctorService.updateDoctor(doctor.getDoctorId(), request("Johnny", readVersion)))
+                .isInstanceOf(ConflictException.class);
+
+        entityManager.clear();
+        assertThat(entityManager.find(Doctor.class, doctor.getDoctorId()).getFirstName()).isEqualTo("Jonathan");
+    }
+
+    @Test
+    void anEditWithoutTheVersionItWasMadeAgainstIsRejected() {
+        Doctor doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        entityManager.flush();
+
+        assertThatThrownBy(() -> doctorService.updateDoctor(doctor.getDoctorId(), request("Jonathan", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private DoctorRequest request(String firstName, Long version) {
+        DoctorRequest request = new DoctorRequest();
+        request.setFirstName(firstName);
+        request.setLastName("Smith");
+        request.setVersion(version);
+        return request;
+    }
+}
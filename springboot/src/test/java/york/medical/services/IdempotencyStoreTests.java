@@ -0,0 +1,105 @@
+package york.medical.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import york.medical.exceptions.ConflictException;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Replays, mismatched bodies, requests still in flight and keys reused by different callers.
+class IdempotencyStoreTests {
+
+    private static final Principal JANE = new TestingAuthenticationToken("jane", null);
+    private static final Principal JOHN = new TestingAuthenticationToken("john", null);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyStore store = new IdempotencyStore(meterRegistry, new ObjectMapper(), 100, 60);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void aRetriedRequestGetsTheFirstResponseBack() {
+        ResponseEntity<Integer> first = store.execute("key-1", JANE, "create", Map.of("slotId", 1), this::created);
+        ResponseEntity<Integer> retried = store.execute("key-1", JANE, "create", Map.of("slotId", 1), this::created);
+
+        assertThat(retried).isSameAs(first);
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("medical.idempotency.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("medical.idempotency.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void aKeyReusedForADifferentBodyIsRejectedEvenWhenTheHashCodesCollide() {
+        // "Aa" and "BB" share a String hash code
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        store.execute("key-1", JANE, "create", Map.of("note", "Aa"), this::created);
+
+        assertThatThrownBy(() -> store.execute("key-1", JANE, "create", Map.of("note", "BB"), this::created))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void aRetryWhileTheFirstRequestIsRunningIsAConflict() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<Integer>> first = CompletableFuture.supplyAsync(() ->
+                store.execute("key-1", JANE, "create", Map.of("slotId", 1), () -> {
+                    running.countDown();
+                    await(finish);
+                    return created();
+                }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> store.execute("key-1", JANE, "create", Map.of("slotId", 1), this::created))
+                .isInstanceOf(ConflictException.class);
+
+        finish.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(store.execute("key-1", JANE, "create", Map.of("slotId", 1), this::created).getBody()).isEqualTo(1);
+    }
+
+    @Test
+    void theSameKeyFromAnotherCallerIsAnotherRequest() {
+        store.execute("key-1", JANE, "create", Map.of("slotId", 1), this::created);
+        ResponseEntity<Integer> other = store.execute("key-1", JOHN, "create", Map.of("slotId", 1), this::created);
+        ResponseEntity<Integer> anonymous = store.execute("key-1", null, "create", Map.of("slotId", 1), this::created);
+
+        assertThat(other.getBody()).isEqualTo(2);
+        assertThat(anonymous.getBody()).isEqualTo(3);
+    }
+
+    @Test
+    void aFailedRequestCanBeRetriedWithTheSameKey() {
+        assertThatThrownBy(() -> store.execute("key-1", JANE, "create", Map.of("slotId", 1), () -> {
+            throw new ConflictException("Slot is not available for booking.");
+        })).isInstanceOf(ConflictException.class);
+
+        assertThat(store.execute("key-1", JANE, "create", Map.of("slotId", 1), this::created).getBody()).isEqualTo(1);
+    }
+
+    // The body counts the executions, so a replay is told apart from a new execution
+    private ResponseEntity<Integer> created() {
+        return new ResponseEntity<>(executions.incrementAndGet(), HttpStatus.CREATED);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import york.medical.dtos.requests.NextAvailableRequest;
+import york.medical.dtos.responses.SlotResponse;
+import york.medical.entities.Doctor;
+import york.medical.entities.Specialty;
+import york.medical.enums.EmploymentStatus;
+import york.medical.enums.SlotStatus;
+import york.medical.repositories.AppointmentSlotRepository;
+import york.medical.support.Fixtures;
+import york.medical.support.QueryCounter;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Searches the earliest free slots of a specialty across 500 doctors with 30 days of slots each.
+@ServiceTest
+class NextAvailableSearchTests {
+
+    private static final int DOCTORS = 500;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private Fixtures fixtures;
+
+    @Test
+    void returnsTheEarliestFreeSlotsOfTheSpecialtyInOneQuery() {
+        Specialty cardiology = fixtures.specialty("Cardiology");
+        Specialty dermatology = fixtures.specialty("Dermatology");
+
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(29);
+
+        List<Doctor> cardiologists = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            cardiologists.add(createDoctor(cardiology, EmploymentStatus.ACTIVE, LocalTime.of(9, 0), from, to));
+        }
+        // Earlier slots that must not show up: another specialty and an inactive doctor
+        createDoctor(dermatology, EmploymentStatus.ACTIVE, LocalTime.of(7, 0), from, to);
+        createDoctor(cardiology, EmploymentStatus.INACTIVE, LocalTime.of(7, 0), from, to);
+
+        // The first doctor's first slot is booked
+        slotRepository.findByDoctor_DoctorIdAndDateAndStartTime(cardiologists.get(0).getDoctorId(), from, LocalTime.of(9, 0))
+                .ifPresent(slot -> slotRepository.transitionStatus(slot.getSlotId(), SlotStatus.AVAILABLE,
+                        SlotStatus.RESERVED, LocalDateTime.now()));
+        entityManager.flush();
+        entityManager.clear();
+
+        NextAvailableRequest request = new NextAvailableRequest();
+        request.setSpecialtyId(cardiology.getSpecialtyId());
+        request.setFrom(from);
+        request.setTo(to);
+        request.setLimit(10);
+
+        queryCounter.reset();
+        List<SlotResponse> slots = appointmentService.findNextAvailableSlots(request);
+        assertThat(queryCounter.count()).isEqualTo(1);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            appointmentService.findNextAvailableSlots(request);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("Next available search over %d doctors x 30 days: best of %d runs %.2f ms%n",
+                DOCTORS, RUNS, best / 1_000_000.0);
+
+        assertThat(slots).hasSize(10);
+        assertThat(slots).allSatisfy(slot -> {
+            assertThat(slot.getDate()).isEqualTo(from);
+            assertThat(slot.getStartTime()).isEqualTo(LocalTime.of(9, 0));
+            assertThat(slot.getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+        });
+        assertThat(slots).isSortedAccordingTo(Comparator.comparing(SlotResponse::getDoctorId));
+        assertThat(slots).extracting(SlotResponse::getDoctorId).doesNotContain(cardiologists.get(0).getDoctorId());
+    }
+
+    private Doctor createDoctor(Specialty specialty, EmploymentStatus status, LocalTime start, LocalDate from, LocalDate to) {
+        Doctor doctor = fixtures.doctor(specialty, "Doctor", specialty.getName(), status);
+        slotGenerationService.generateSlots(doctor, fixtures.weekdays(doctor, start, start.plusHours(2)), from, to);
+        return doctor;
+    }
+}
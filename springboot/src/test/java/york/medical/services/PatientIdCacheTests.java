@@ -0,0 +1,52 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import york.medical.configuration.CachingConfig;
+import york.medical.dtos.requests.UserRequest;
+import york.medical.entities.Patient;
+import york.medical.support.QueryCounter;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The Okta ID to patient ID lookup hits the database once, and a missing profile is never cached.
+@ServiceTest(properties = {
+        "spring.cache.type=caffeine",
+        "spring.cache.cache-names=specialties,specialty,doctorDirectory,doctor,patientId",
+        "spring.cache.caffeine.spec=maximumSize=100,recordStats"
+})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@Import(CachingConfig.class)
+class PatientIdCacheTests {
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    void patientIdIsCachedOnceTheProfileExists() {
+        assertThat(userService.findPatientId("okta-1")).isEmpty();
+
+        UserRequest request = new UserRequest();
+        request.setOktaId("okta-1");
+        request.setFirstName("Jane");
+        request.setLastName("Doe");
+        request.setDob(LocalDate.of(1990, 1, 1));
+        Patient patient = userService.createPatientProfile(request);
+
+        queryCounter.reset();
+        assertThat(userService.findPatientId("okta-1")).contains(patient.getPatientId());
+        assertThat(queryCounter.count()).isEqualTo(1);
+
+        queryCounter.reset();
+        assertThat(userService.findPatientId("okta-1")).contains(patient.getPatientId());
+        assertThat(queryCounter.count()).isZero();
+    }
+}
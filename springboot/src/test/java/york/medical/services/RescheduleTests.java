@@ -0,0 +1,105 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import york.medical.dtos.requests.AppointmentRequest;
+import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.entities.*;
+import york.medical.enums.*;
+import york.medical.exceptions.ConflictException;
+import york.medical.support.Fixtures;
+import york.medical.support.QueryCounter;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rescheduling claims the new slot before releasing the old one and costs a fixed handful of statements.
+@ServiceTest
+class RescheduleTests {
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private Fixtures fixtures;
+
+    private Patient patient;
+    private Doctor doctor;
+    private AppointmentSlot bookedSlot;
+    private AppointmentSlot freeSlot;
+    private AppointmentSlot takenSlot;
+    private Appointment appointment;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        patient = fixtures.patient("okta-1", "Jane", "Doe");
+
+        LocalDate day = LocalDate.now().plusDays(1);
+        bookedSlot = fixtures.slot(doctor, day, LocalTime.of(9, 0), SlotStatus.RESERVED);
+        freeSlot = fixtures.slot(doctor, day, LocalTime.of(9, 30), SlotStatus.AVAILABLE);
+        takenSlot = fixtures.slot(doctor, day, LocalTime.of(10, 0), SlotStatus.RESERVED);
+        appointment = fixtures.appointment(patient, bookedSlot);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void rescheduleMovesTheBookingAndLinksTheReplacement() {
+        queryCounter.reset();
+        AppointmentResponse moved = appointmentService.updateAppointment(appointment.getAppointmentId(), request(freeSlot));
+        long statements = queryCounter.count();
+
+        // Slot, appointment, claim, release, cancel, insert
+        assertThat(statements).isLessThanOrEqualTo(6);
+        assertThat(moved.getSlotId()).isEqualTo(freeSlot.getSlotId());
+        assertThat(moved.getRescheduledFromId()).isEqualTo(appointment.getAppointmentId());
+        assertThat(moved.getDoctorName()).isEqualTo("John Smith");
+        assertThat(moved.getPatientName()).isEqualTo("Jane Doe");
+
+        entityManager.clear();
+        Appointment old = entityManager.find(Appointment.class, appointment.getAppointmentId());
+        assertThat(old.getStatus()).isEqualTo(AppointmentStatus.CANCELLED);
+        assertThat(old.getSlot()).isNull();
+        assertThat(entityManager.find(AppointmentSlot.class, bookedSlot.getSlotId()).getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+        assertThat(entityManager.find(AppointmentSlot.class, freeSlot.getSlotId()).getStatus()).isEqualTo(SlotStatus.RESERVED);
+    }
+
+    @Test
+    void theSlotsReadAfterARescheduleAreNotTheStaleCopiesOfTheTransaction() {
+        appointmentService.updateAppointment(appointment.getAppointmentId(), request(freeSlot));
+
+        // No clear: the service must not leave the copies it loaded before the slot updates managed
+        AppointmentSlot claimed = entityManager.find(AppointmentSlot.class, freeSlot.getSlotId());
+        assertThat(claimed.getStatus()).isEqualTo(SlotStatus.RESERVED);
+        assertThat(claimed.getVersion()).isEqualTo(freeSlot.getVersion() + 1);
+        assertThat(entityManager.find(AppointmentSlot.class, bookedSlot.getSlotId()).getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+    }
+
+    @Test
+    void aTakenSlotLeavesTheOldBookingUntouched() {
+        assertThatThrownBy(() -> appointmentService.updateAppointment(appointment.getAppointmentId(), request(takenSlot)))
+                .isInstanceOf(ConflictException.class);
+
+        entityManager.clear();
+        assertThat(entityManager.find(Appointment.class, appointment.getAppointmentId()).getStatus())
+                .isEqualTo(AppointmentStatus.CONFIRMED);
+        assertThat(entityManager.find(AppointmentSlot.class, bookedSlot.getSlotId()).getStatus()).isEqualTo(SlotStatus.RESERVED);
+    }
+
+    private AppointmentRequest request(AppointmentSlot slot) {
+        AppointmentRequest request = fixtures.booking(patient, slot);
+        request.setVisitType(VisitType.TELEHEALTH);
+        return request;
+    }
+}
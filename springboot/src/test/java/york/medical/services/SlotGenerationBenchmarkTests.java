@@ -0,0 +1,120 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.DoctorAvailability;
+import york.medical.entities.Specialty;
+import york.medical.enums.SlotStatus;
+import york.medical.repositories.AppointmentSlotRepository;
+import york.medical.repositories.DoctorAvailabilityRepository;
+import york.medical.support.Fixtures;
+import york.medical.support.QueryCounter;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compares the legacy per-slot generation loop with the bulk generator.
+@ServiceTest
+class SlotGenerationBenchmarkTests {
+
+    private static final int DOCTORS = 20;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+    @Autowired
+    private DoctorAvailabilityRepository availabilityRepository;
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private Fixtures fixtures;
+
+    @Test
+    void bulkGenerationUsesFewStatementsPerDoctor() {
+        Specialty specialty = fixtures.specialty("Cardiology");
+
+        LocalDate from = LocalDate.now();
+        LocalDate to = slotGenerationService.horizonEnd(from);
+
+        // Before: one exists-check and one insert per slot
+        List<Doctor> legacyDoctors = createDoctors(specialty, DOCTORS);
+        queryCounter.reset();
+        long start = System.nanoTime();
+        for (Doctor doctor : legacyDoctors) {
+            for (DoctorAvailability availability : availabilityRepository.findByDoctor_DoctorId(doctor.getDoctorId())) {
+                legacyGenerate(doctor, availability, from, to);
+            }
+        }
+        long legacyMillis = (System.nanoTime() - start) / 1_000_000;
+        long legacyStatements = queryCounter.count();
+
+        // After: one range query plus batched inserts per doctor
+        List<Doctor> bulkDoctors = createDoctors(specialty, DOCTORS);
+        queryCounter.reset();
+        start = System.nanoTime();
+        int generated = 0;
+        for (Doctor doctor : bulkDoctors) {
+            generated += slotGenerationService.generateSlots(doctor,
+                    availabilityRepository.findByDoctor_DoctorId(doctor.getDoctorId()), from, to);
+        }
+        long bulkMillis = (System.nanoTime() - start) / 1_000_000;
+        long bulkStatements = queryCounter.count();
+
+        System.out.printf("Slot generation for %d doctors (%d slots each)%n", DOCTORS, generated / DOCTORS);
+        System.out.printf("  per-slot: %d statements/doctor, %d ms%n", legacyStatements / DOCTORS, legacyMillis);
+        System.out.printf("  bulk:     %d statements/doctor, %d ms%n", bulkStatements / DOCTORS, bulkMillis);
+
+        assertThat(generated).isPositive();
+        // Availability lookup + existing-slot range query + insert batch
+        assertThat(bulkStatements).isLessThanOrEqualTo(3L * DOCTORS);
+        assertThat(bulkStatements).isLessThan(legacyStatements / 10);
+
+        // Running it again writes nothing
+        assertThat(slotGenerationService.generateSlots(bulkDoctors.get(0),
+                availabilityRepository.findByDoctor_DoctorId(bulkDoctors.get(0).getDoctorId()), from, to)).isZero();
+    }
+
+    private List<Doctor> createDoctors(Specialty specialty, int count) {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Doctor doctor = fixtures.doctor(specialty, "Doctor", String.valueOf(i));
+            fixtures.weekdays(doctor, LocalTime.of(9, 0), LocalTime.of(17, 0));
+            doctors.add(doctor);
+        }
+        return doctors;
+    }
+
+    // The generation loop DoctorService used before the bulk generator
+    private void legacyGenerate(Doctor doctor, DoctorAvailability availability, LocalDate from, LocalDate to) {
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!day.getDayOfWeek().name().equals(availability.getDayOfWeek().name())) {
+                continue;
+            }
+            LocalTime currentTime = availability.getStartTime();
+            while (currentTime.isBefore(availability.getEndTime())) {
+                LocalTime slotEndTime = currentTime.plusMinutes(30);
+                if (slotEndTime.isAfter(availability.getEndTime())) break;
+
+                if (!slotRepository.existsByDoctor_DoctorIdAndDateAndStartTimeAndEndTime(
+                        doctor.getDoctorId(), day, currentTime, slotEndTime)) {
+                    AppointmentSlot slot = new AppointmentSlot();
+                    slot.setDoctor(doctor);
+                    slot.setDate(day);
+                    slot.setStartTime(currentTime);
+                    slot.setEndTime(slotEndTime);
+                    slot.setStatus(SlotStatus.AVAILABLE);
+                    slotRepository.saveAndFlush(slot);
+                }
+                currentTime = slotEndTime;
+            }
+        }
+    }
+}
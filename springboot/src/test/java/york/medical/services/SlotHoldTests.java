@@ -0,0 +1,159 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import york.medical.dtos.requests.HoldConfirmRequest;
+import york.medical.dtos.requests.SlotHoldRequest;
+import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.dtos.responses.SlotHoldResponse;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.Patient;
+import york.medical.enums.SlotStatus;
+import york.medical.enums.VisitType;
+import york.medical.exceptions.ConflictException;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A hold keeps a slot for one patient until it is confirmed, given up or swept after it expires.
+@ServiceTest
+class SlotHoldTests {
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private Fixtures fixtures;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Patient other;
+    private AppointmentSlot slot;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        patient = fixtures.patient("okta-1", "Jane", "Doe");
+        other = fixtures.patient("okta-2", "John", "Roe");
+        slot = fixtures.slot(doctor, LocalDate.now().plusDays(1), LocalTime.of(9, 0), SlotStatus.AVAILABLE);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void aHoldTakesTheSlotForItsPatientOnly() {
+        LocalDateTime before = LocalDateTime.now();
+        SlotHoldResponse response = appointmentService.holdSlot(patient.getPatientId(), hold());
+
+        assertThat(response.getSlotId()).isEqualTo(slot.getSlotId());
+        assertThat(response.getExpiresAt()).isAfterOrEqualTo(before.plusSeconds(300));
+        AppointmentSlot held = stored();
+        assertThat(held.getStatus()).isEqualTo(SlotStatus.PENDING);
+        assertThat(held.getHeldByPatientId()).isEqualTo(patient.getPatientId());
+
+        // Holds last medical.slots.hold-ttl-seconds; the holder may extend one, anyone else has to wait
+        appointmentService.holdSlot(patient.getPatientId(), hold());
+        assertThatThrownBy(() -> appointmentService.holdSlot(other.getPatientId(), hold())).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void onlyTheHolderCanConfirmAHold() {
+        appointmentService.holdSlot(patient.getPatientId(), hold());
+
+        assertThatThrownBy(() -> appointmentService.confirmHold(slot.getSlotId(), other.getPatientId(), confirm()))
+                .isInstanceOf(ConflictException.class);
+        assertThat(stored().getStatus()).isEqualTo(SlotStatus.PENDING);
+
+        AppointmentResponse booked = appointmentService.confirmHold(slot.getSlotId(), patient.getPatientId(), confirm());
+        assertThat(booked.getSlotId()).isEqualTo(slot.getSlotId());
+        assertThat(booked.getPatientId()).isEqualTo(patient.getPatientId());
+        AppointmentSlot reserved = stored();
+        assertThat(reserved.getStatus()).isEqualTo(SlotStatus.RESERVED);
+        assertThat(reserved.getHeldByPatientId()).isNull();
+    }
+
+    @Test
+    void anExpiredHoldCannotBeConfirmed() {
+        appointmentService.holdSlot(patient.getPatientId(), hold());
+        expireHolds();
+
+        assertThatThrownBy(() -> appointmentService.confirmHold(slot.getSlotId(), patient.getPatientId(), confirm()))
+                .isInstanceOf(ConflictException.class);
+        assertThat(stored().getStatus()).isEqualTo(SlotStatus.PENDING);
+    }
+
+    @Test
+    void aLapsedHoldDoesNotBlockADirectBookingUntilTheSweep() {
+        appointmentService.holdSlot(other.getPatientId(), hold());
+        assertThatThrownBy(() -> appointmentService.createAppointment(fixtures.booking(patient, slot)))
+                .isInstanceOf(ConflictException.class);
+        expireHolds();
+
+        AppointmentResponse booked = appointmentService.createAppointment(fixtures.booking(patient, slot));
+
+        assertThat(booked.getSlotId()).isEqualTo(slot.getSlotId());
+        AppointmentSlot reserved = stored();
+        assertThat(reserved.getStatus()).isEqualTo(SlotStatus.RESERVED);
+        assertThat(reserved.getHeldByPatientId()).isNull();
+    }
+
+    @Test
+    void theSweepReleasesExpiredHoldsAndLeavesLiveOnesAlone() {
+        AppointmentSlot liveSlot = fixtures.slot(doctor, slot.getDate(), LocalTime.of(9, 30), SlotStatus.AVAILABLE);
+        entityManager.flush();
+        appointmentService.holdSlot(patient.getPatientId(), hold());
+        expireHolds();
+        SlotHoldRequest live = hold();
+        live.setSlotId(liveSlot.getSlotId());
+        appointmentService.holdSlot(other.getPatientId(), live);
+
+        appointmentService.releaseExpiredHolds();
+        entityManager.clear();
+
+        AppointmentSlot released = stored();
+        assertThat(released.getStatus()).isEqualTo(SlotStatus.AVAILABLE);
+        assertThat(released.getHeldByPatientId()).isNull();
+        assertThat(released.getHoldExpiresAt()).isNull();
+        assertThat(entityManager.find(AppointmentSlot.class, liveSlot.getSlotId()).getStatus()).isEqualTo(SlotStatus.PENDING);
+
+        // The released slot can be held again
+        assertThat(appointmentService.holdSlot(other.getPatientId(), hold()).getSlotId()).isEqualTo(slot.getSlotId());
+    }
+
+    // Moves every current hold of the first slot into the past
+    private void expireHolds() {
+        jdbcTemplate.update("UPDATE appointment_slot SET hold_expires_at = ? WHERE slot_id = ?",
+                LocalDateTime.now().minusMinutes(1), slot.getSlotId());
+    }
+
+    private AppointmentSlot stored() {
+        entityManager.clear();
+        return entityManager.find(AppointmentSlot.class, slot.getSlotId());
+    }
+
+    private SlotHoldRequest hold() {
+        SlotHoldRequest request = new SlotHoldRequest();
+        request.setDoctorId(doctor.getDoctorId());
+        request.setSlotId(slot.getSlotId());
+        return request;
+    }
+
+    private HoldConfirmRequest confirm() {
+        HoldConfirmRequest request = new HoldConfirmRequest();
+        request.setVisitType(VisitType.IN_PERSON);
+        return request;
+    }
+}
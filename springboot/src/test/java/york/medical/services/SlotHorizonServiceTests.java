@@ -0,0 +1,161 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import york.medical.dtos.responses.SlotHorizonRunResponse;
+import york.medical.entities.Doctor;
+import york.medical.entities.JobCheckpoint;
+import york.medical.entities.Specialty;
+import york.medical.enums.EmploymentStatus;
+import york.medical.repositories.AppointmentSlotRepository;
+import york.medical.repositories.DoctorRepository;
+import york.medical.repositories.JobCheckpointRepository;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// The horizon job commits one chunk of doctors at a time together with its checkpoint,
+// so a run that fails halfway resumes after the last committed chunk.
+@ServiceTest(properties = "medical.slots.horizon-chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlotHorizonServiceTests {
+
+    private static final int DOCTORS = 5;
+
+    @Autowired
+    private SlotHorizonService slotHorizonService;
+    @SpyBean
+    private SlotGenerationService slotGenerationService;
+    @SpyBean
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+    @Autowired
+    private Fixtures fixtures;
+
+    private final List<Doctor> doctors = new ArrayList<>();
+    private Doctor inactive;
+
+    @BeforeEach
+    void setUp() {
+        Specialty cardiology = fixtures.specialty("Cardiology");
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor doctor = fixtures.doctor(cardiology, "Doctor", String.valueOf(i));
+            fixtures.weekdays(doctor, LocalTime.of(9, 0), LocalTime.of(10, 0));
+            doctors.add(doctor);
+        }
+        inactive = fixtures.doctor(cardiology, "Retired", "Doctor", EmploymentStatus.INACTIVE);
+        fixtures.weekdays(inactive, LocalTime.of(9, 0), LocalTime.of(10, 0));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void everyActiveDoctorIsExtendedChunkByChunkAndTheCheckpointCompletes() {
+        slotHorizonService.extendHorizon();
+
+        SlotHorizonRunResponse run = slotHorizonService.getLastRun();
+        assertThat(run.getResumedAfterDoctorId()).isNull();
+        assertThat(run.getDoctorsProcessed()).isEqualTo(DOCTORS);
+        assertThat(run.getSlotsGenerated()).isPositive().isEqualTo(slotRepository.count());
+        assertThat(slotsOf(inactive)).isZero();
+
+        // Chunks of 2, 2 and 1 doctors, then an empty chunk ends the run
+        verify(doctorRepository, times(4)).findByEmploymentStatusAndDoctorIdGreaterThanOrderByDoctorIdAsc(
+                eq(EmploymentStatus.ACTIVE), any(), eq(PageRequest.of(0, 2)));
+
+        JobCheckpoint checkpoint = checkpoint();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getLastProcessedId()).isEqualTo(doctors.get(DOCTORS - 1).getDoctorId());
+        assertThat(checkpoint.getItemsProcessed()).isEqualTo(run.getSlotsGenerated());
+    }
+
+    @Test
+    void aFailedChunkRollsBackAndTheNextRunResumesAfterTheLastCommittedOne() {
+        // The second doctor of the second chunk fails once
+        Long failingId = doctors.get(3).getDoctorId();
+        doThrow(new IllegalStateException("Connection lost")).doCallRealMethod().when(slotGenerationService)
+                .generateSlots(argThat(doctor -> doctor != null && failingId.equals(doctor.getDoctorId())),
+                        anyCollection(), any(LocalDate.class), any(LocalDate.class));
+
+        assertThatThrownBy(() -> slotHorizonService.extendHorizon()).isInstanceOf(IllegalStateException.class);
+
+        JobCheckpoint interrupted = checkpoint();
+        assertThat(interrupted.isCompleted()).isFalse();
+        assertThat(interrupted.getLastProcessedId()).isEqualTo(doctors.get(1).getDoctorId());
+        assertThat(slotsOf(doctors.get(1))).isPositive();
+        // The failed chunk's first doctor was rolled back with it
+        assertThat(slotsOf(doctors.get(2))).isZero();
+        long committedBefore = slotRepository.count();
+
+        slotHorizonService.extendHorizon();
+
+        SlotHorizonRunResponse resumed = slotHorizonService.getLastRun();
+        assertThat(resumed.getResumedAfterDoctorId()).isEqualTo(doctors.get(1).getDoctorId());
+        assertThat(resumed.getDoctorsProcessed()).isEqualTo(DOCTORS - 2);
+        assertThat(committedBefore + resumed.getSlotsGenerated()).isEqualTo(slotRepository.count());
+
+        JobCheckpoint checkpoint = checkpoint();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        // The checkpoint counts the slots of the interrupted and the resumed run
+        assertThat(checkpoint.getItemsProcessed()).isEqualTo(slotRepository.count());
+    }
+
+    @Test
+    void anInterruptedRunForAnotherHorizonIsStartedOverFromTheFirstDoctor() {
+        Long failingId = doctors.get(3).getDoctorId();
+        doThrow(new IllegalStateException("Connection lost")).doCallRealMethod().when(slotGenerationService)
+                .generateSlots(argThat(doctor -> doctor != null && failingId.equals(doctor.getDoctorId())),
+                        anyCollection(), any(LocalDate.class), any(LocalDate.class));
+        assertThatThrownBy(() -> slotHorizonService.extendHorizon()).isInstanceOf(IllegalStateException.class);
+
+        // As if the run had been interrupted the night before
+        JobCheckpoint interrupted = checkpoint();
+        interrupted.setHorizonEnd(interrupted.getHorizonEnd().minusDays(1));
+        checkpointRepository.save(interrupted);
+
+        slotHorizonService.extendHorizon();
+
+        SlotHorizonRunResponse run = slotHorizonService.getLastRun();
+        assertThat(run.getResumedAfterDoctorId()).isNull();
+        assertThat(run.getDoctorsProcessed()).isEqualTo(DOCTORS);
+        JobCheckpoint checkpoint = checkpoint();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getHorizonEnd()).isEqualTo(run.getHorizonEnd());
+    }
+
+    private long slotsOf(Doctor doctor) {
+        LocalDate today = LocalDate.now();
+        return slotRepository.findByDoctor_DoctorIdAndDateBetween(doctor.getDoctorId(), today,
+                slotGenerationService.horizonEnd(today)).size();
+    }
+
+    private JobCheckpoint checkpoint() {
+        return checkpointRepository.findById(SlotHorizonService.JOB_NAME).orElseThrow();
+    }
+}
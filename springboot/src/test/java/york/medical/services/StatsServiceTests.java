@@ -0,0 +1,171 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.dtos.responses.StatsResponse;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.Patient;
+import york.medical.enums.AppointmentStatus;
+import york.medical.enums.EmploymentStatus;
+import york.medical.enums.SlotStatus;
+import york.medical.repositories.AppointmentRepository;
+import york.medical.repositories.DoctorRepository;
+import york.medical.repositories.SpecialtyRepository;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The home page counters move only when the write commits, and reconcile repairs any drift.
+@ServiceTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatsServiceTests {
+
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private Fixtures fixtures;
+
+    private Patient patient;
+    private AppointmentSlot slot;
+
+    @BeforeEach
+    void setUp() {
+        Doctor doctor = fixtures.doctor(fixtures.specialty("Cardiology"), "John", "Smith");
+        patient = fixtures.patient("okta-1", "Jane", "Doe");
+        slot = fixtures.slot(doctor, LocalDate.now().plusDays(1), LocalTime.of(9, 0), SlotStatus.AVAILABLE);
+        statsService.reconcile();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void aBookingIsCountedOnceItsTransactionCommits() {
+        transactionTemplate.executeWithoutResult(status -> {
+            appointmentService.createAppointment(fixtures.booking(patient, slot));
+            assertThat(appointments()).isZero();
+        });
+
+        assertThat(appointments()).isEqualTo(1);
+    }
+
+    @Test
+    void aRolledBackBookingLeavesTheCountersAlone() {
+        transactionTemplate.executeWithoutResult(status -> {
+            appointmentService.createAppointment(fixtures.booking(patient, slot));
+            status.setRollbackOnly();
+        });
+
+        assertThat(appointmentRepository.count()).isZero();
+        assertThat(appointments()).isZero();
+    }
+
+    @Test
+    void cancellingAnAlreadyCancelledAppointmentCountsOnlyOnce() {
+        AppointmentResponse booked = appointmentService.createAppointment(fixtures.booking(patient, slot));
+        assertThat(appointments()).isEqualTo(1);
+
+        appointmentService.cancelAppointment(booked.getAppointmentId());
+        appointmentService.cancelAppointment(booked.getAppointmentId());
+
+        assertThat(appointments()).isZero();
+    }
+
+    @Test
+    void onlyTransitionsIntoOrOutOfActiveMoveTheDoctorCount() {
+        long active = statsService.getStats().getDoctorsCount();
+
+        statsService.doctorStatusChanged(EmploymentStatus.ACTIVE, EmploymentStatus.ACTIVE);
+        statsService.doctorStatusChanged(EmploymentStatus.INACTIVE, EmploymentStatus.INACTIVE);
+        assertThat(statsService.getStats().getDoctorsCount()).isEqualTo(active);
+
+        statsService.doctorStatusChanged(EmploymentStatus.ACTIVE, EmploymentStatus.INACTIVE);
+        assertThat(statsService.getStats().getDoctorsCount()).isEqualTo(active - 1);
+
+        statsService.doctorStatusChanged(EmploymentStatus.INACTIVE, EmploymentStatus.ACTIVE);
+        statsService.doctorStatusChanged(null, EmploymentStatus.ACTIVE);
+        assertThat(statsService.getStats().getDoctorsCount()).isEqualTo(active + 1);
+    }
+
+    @Test
+    void reconcileRecountsWritesThatBypassedTheService() {
+        appointmentService.createAppointment(fixtures.booking(patient, slot));
+        jdbcTemplate.update("UPDATE appointment SET status = 'CANCELLED', active_date = NULL");
+        jdbcTemplate.update("UPDATE doctor SET employment_status = 'INACTIVE'");
+        assertThat(appointments()).isEqualTo(1);
+
+        statsService.reconcile();
+
+        assertThat(appointments()).isZero();
+        assertThat(statsService.getStats().getDoctorsCount()).isZero();
+        assertThat(statsService.getStats().getSpecialtiesCount()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentFirstRequestsCountOnlyOnce() throws Exception {
+        AppointmentRepository appointments = mock(AppointmentRepository.class);
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(appointments.countByStatusNot(AppointmentStatus.CANCELLED)).thenAnswer(invocation -> {
+            counting.countDown();
+            finish.await(5, TimeUnit.SECONDS);
+            return 7L;
+        });
+        StatsService coldService = new StatsService(mock(DoctorRepository.class), appointments, mock(SpecialtyRepository.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<StatsResponse>> requests = new ArrayList<>();
+            requests.add(executor.submit(coldService::getStats));
+            assertThat(counting.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                requests.add(executor.submit(coldService::getStats));
+            }
+            finish.countDown();
+
+            for (Future<StatsResponse> request : requests) {
+                assertThat(request.get(5, TimeUnit.SECONDS).getAppointmentsCount()).isEqualTo(7);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(appointments, times(1)).countByStatusNot(AppointmentStatus.CANCELLED);
+    }
+
+    private long appointments() {
+        return statsService.getStats().getAppointmentsCount();
+    }
+}
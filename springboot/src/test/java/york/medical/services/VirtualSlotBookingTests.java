@@ -0,0 +1,148 @@
+package york.medical.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import york.medical.dtos.requests.AppointmentRequest;
+import york.medical.dtos.requests.NextAvailableRequest;
+import york.medical.dtos.responses.AppointmentResponse;
+import york.medical.dtos.responses.SlotResponse;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Doctor;
+import york.medical.entities.Patient;
+import york.medical.entities.Specialty;
+import york.medical.enums.EmploymentStatus;
+import york.medical.enums.SlotStatus;
+import york.medical.enums.VisitType;
+import york.medical.exceptions.ConflictException;
+import york.medical.repositories.AppointmentSlotRepository;
+import york.medical.support.Fixtures;
+import york.medical.support.ServiceTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// In VIRTUAL mode free slots come from the availability rules and a slot is only stored once it gets booked.
+@ServiceTest(properties = "medical.slots.mode=VIRTUAL")
+class VirtualSlotBookingTests {
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private Fixtures fixtures;
+
+    private Specialty specialty;
+    private Doctor doctor;
+    private Patient patient;
+    private LocalDate monday;
+
+    @BeforeEach
+    void setUp() {
+        specialty = fixtures.specialty("Cardiology");
+        doctor = fixtures.doctor(specialty, "John", "Smith");
+        fixtures.weekdays(doctor, LocalTime.of(9, 0), LocalTime.of(11, 0));
+        patient = fixtures.patient("okta-1", "Jane", "Doe");
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void theFreeSlotsOfADayAreDerivedFromTheAvailabilityWithoutStoringAny() {
+        assertThat(appointmentService.getAvailableSlots(doctor.getDoctorId(), monday))
+                .extracting(SlotResponse::getStartTime)
+                .containsExactly(LocalTime.of(9, 0), LocalTime.of(9, 30), LocalTime.of(10, 0), LocalTime.of(10, 30));
+        assertThat(slotRepository.count()).isZero();
+    }
+
+    @Test
+    void theFirstBookingStoresTheSlotAsReservedAndTakesItOffTheList() {
+        AppointmentResponse booked = appointmentService.createAppointment(booking(patient, monday, LocalTime.of(9, 30)));
+        // Every request has a persistence context of its own
+        entityManager.clear();
+
+        AppointmentSlot stored = slotRepository.findById(booked.getSlotId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(SlotStatus.RESERVED);
+        assertThat(stored.getEndTime()).isEqualTo(LocalTime.of(10, 0));
+        assertThat(appointmentService.getAvailableSlots(doctor.getDoctorId(), monday))
+                .extracting(SlotResponse::getStartTime)
+                .containsExactly(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(10, 30));
+
+        // The stored slot is now claimed like any other
+        Patient other = fixtures.patient("okta-2", "John", "Roe");
+        assertThatThrownBy(() -> appointmentService.createAppointment(booking(other, monday, LocalTime.of(9, 30))))
+                .isInstanceOf(ConflictException.class);
+        assertThat(slotRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void aSlotInThePastCannotBeBooked() {
+        LocalDate lastMonday = LocalDate.now().with(TemporalAdjusters.previous(DayOfWeek.MONDAY));
+
+        assertThatThrownBy(() -> appointmentService.createAppointment(booking(patient, lastMonday, LocalTime.of(9, 0))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("past");
+        assertThat(slotRepository.count()).isZero();
+    }
+
+    @Test
+    void aTimeOutsideTheAvailabilityCannotBeBooked() {
+        assertThatThrownBy(() -> appointmentService.createAppointment(booking(patient, monday, LocalTime.of(12, 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(slotRepository.count()).isZero();
+    }
+
+    @Test
+    void theNextAvailableSearchSkipsStoredSlotsThatAreHeldOrBooked() {
+        Doctor colleague = fixtures.doctor(specialty, "Ann", "Lee");
+        fixtures.weekdays(colleague, LocalTime.of(9, 0), LocalTime.of(10, 0));
+        // Earlier hours that must not show up: an inactive doctor and another specialty
+        Doctor retired = fixtures.doctor(specialty, "Retired", "Doctor", EmploymentStatus.INACTIVE);
+        fixtures.weekdays(retired, LocalTime.of(8, 0), LocalTime.of(9, 0));
+        Doctor dermatologist = fixtures.doctor(fixtures.specialty("Dermatology"), "Skin", "Doctor");
+        fixtures.weekdays(dermatologist, LocalTime.of(8, 0), LocalTime.of(9, 0));
+
+        fixtures.slot(doctor, monday, LocalTime.of(9, 0), SlotStatus.RESERVED);
+        AppointmentSlot released = fixtures.slot(doctor, monday, LocalTime.of(9, 30), SlotStatus.AVAILABLE);
+        fixtures.slot(colleague, monday, LocalTime.of(9, 0), SlotStatus.PENDING);
+        entityManager.flush();
+        entityManager.clear();
+
+        NextAvailableRequest request = new NextAvailableRequest();
+        request.setSpecialtyId(specialty.getSpecialtyId());
+        request.setFrom(monday);
+        request.setTo(monday.plusDays(7));
+        request.setLimit(3);
+
+        List<SlotResponse> slots = appointmentService.findNextAvailableSlots(request);
+
+        assertThat(slots).extracting(SlotResponse::getDoctorId, SlotResponse::getDate, SlotResponse::getStartTime,
+                        SlotResponse::getSlotId)
+                .containsExactly(
+                        tuple(doctor.getDoctorId(), monday, LocalTime.of(9, 30), released.getSlotId()),
+                        tuple(colleague.getDoctorId(), monday, LocalTime.of(9, 30), null),
+                        tuple(doctor.getDoctorId(), monday.plusDays(1), LocalTime.of(9, 0), null));
+    }
+
+    private AppointmentRequest booking(Patient patient, LocalDate date, LocalTime startTime) {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setPatientId(patient.getPatientId());
+        request.setDoctorId(doctor.getDoctorId());
+        request.setDate(date);
+        request.setStartTime(startTime);
+        request.setVisitType(VisitType.IN_PERSON);
+        return request;
+    }
+}
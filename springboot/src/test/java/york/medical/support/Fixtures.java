@@ -0,0 +1,150 @@
+package york.medical.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import york.medical.dtos.requests.AppointmentRequest;
+import york.medical.entities.Appointment;
+import york.medical.entities.AppointmentSlot;
+import york.medical.entities.Auth;
+import york.medical.entities.Doctor;
+import york.medical.entities.DoctorAvailability;
+import york.medical.entities.Patient;
+import york.medical.entities.Specialty;
+import york.medical.enums.DayOfWeek;
+import york.medical.enums.EmploymentStatus;
+import york.medical.enums.Role;
+import york.medical.enums.SlotStatus;
+import york.medical.enums.VisitType;
+import york.medical.repositories.AppointmentRepository;
+import york.medical.repositories.AppointmentSlotRepository;
+import york.medical.repositories.AuthRepository;
+import york.medical.repositories.DoctorAvailabilityRepository;
+import york.medical.repositories.DoctorRepository;
+import york.medical.repositories.PatientRepository;
+import york.medical.repositories.SpecialtyRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds the test data through the repositories, so it works inside the test transaction as well as in
+// tests that commit (those call deleteAll afterwards). Slots last 30 minutes.
+@TestComponent
+public class Fixtures {
+
+    private final SpecialtyRepository specialtyRepository;
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityRepository availabilityRepository;
+    private final AuthRepository authRepository;
+    private final PatientRepository patientRepository;
+    private final AppointmentSlotRepository slotRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public Fixtures(SpecialtyRepository specialtyRepository, DoctorRepository doctorRepository,
+                    DoctorAvailabilityRepository availabilityRepository, AuthRepository authRepository,
+                    PatientRepository patientRepository, AppointmentSlotRepository slotRepository,
+                    AppointmentRepository appointmentRepository, JdbcTemplate jdbcTemplate) {
+        this.specialtyRepository = specialtyRepository;
+        this.doctorRepository = doctorRepository;
+        this.availabilityRepository = availabilityRepository;
+        this.authRepository = authRepository;
+        this.patientRepository = patientRepository;
+        this.slotRepository = slotRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Specialty specialty(String name) {
+        Specialty specialty = new Specialty();
+        specialty.setName(name);
+        return specialtyRepository.save(specialty);
+    }
+
+    public Doctor doctor(Specialty specialty, String firstName, String lastName) {
+        return doctor(specialty, firstName, lastName, EmploymentStatus.ACTIVE);
+    }
+
+    public Doctor doctor(Specialty specialty, String firstName, String lastName, EmploymentStatus status) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName(firstName);
+        doctor.setLastName(lastName);
+        doctor.setSpecialty(specialty);
+        doctor.setEmploymentStatus(status);
+        return doctorRepository.save(doctor);
+    }
+
+    public DoctorAvailability availability(Doctor doctor, DayOfWeek day, LocalTime startTime, LocalTime endTime) {
+        DoctorAvailability availability = new DoctorAvailability();
+        availability.setDoctor(doctor);
+        availability.setDayOfWeek(day);
+        availability.setStartTime(startTime);
+        availability.setEndTime(endTime);
+        return availabilityRepository.save(availability);
+    }
+
+    // The same hours on every working day
+    public List<DoctorAvailability> weekdays(Doctor doctor, LocalTime startTime, LocalTime endTime) {
+        List<DoctorAvailability> availabilities = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            availabilities.add(availability(doctor, day, startTime, endTime));
+        }
+        return availabilities;
+    }
+
+    public Patient patient(String oktaId, String firstName, String lastName) {
+        Auth auth = new Auth();
+        auth.setOktaId(oktaId);
+        auth.setRole(Role.PATIENT);
+        authRepository.save(auth);
+
+        Patient patient = new Patient();
+        patient.setAuth(auth);
+        patient.setFirstName(firstName);
+        patient.setLastName(lastName);
+        patient.setDob(LocalDate.of(1990, 1, 1));
+        return patientRepository.save(patient);
+    }
+
+    public AppointmentSlot slot(Doctor doctor, LocalDate date, LocalTime startTime, SlotStatus status) {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setDoctor(doctor);
+        slot.setDate(date);
+        slot.setStartTime(startTime);
+        slot.setEndTime(startTime.plusMinutes(30));
+        slot.setStatus(status);
+        return slotRepository.save(slot);
+    }
+
+    // A confirmed in-person appointment in a slot; the slot should already be RESERVED
+    public Appointment appointment(Patient patient, AppointmentSlot slot) {
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(slot.getDoctor());
+        appointment.setSlot(slot);
+        appointment.setDate(slot.getDate());
+        appointment.setVisitType(VisitType.IN_PERSON);
+        return appointmentRepository.save(appointment);
+    }
+
+    public AppointmentRequest booking(Patient patient, AppointmentSlot slot) {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setPatientId(patient.getPatientId());
+        request.setDoctorId(slot.getDoctor().getDoctorId());
+        request.setSlotId(slot.getSlotId());
+        request.setVisitType(VisitType.IN_PERSON);
+        return request;
+    }
+
+    // Remove every row, for tests that commit their data
+    public void deleteAll() {
+        jdbcTemplate.update("UPDATE appointment SET rescheduled_from_id = NULL");
+        for (String table : List.of("appointment", "appointment_slot", "doctor_availability", "patient", "auth",
+                "doctor", "specialty", "job_checkpoint")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+}
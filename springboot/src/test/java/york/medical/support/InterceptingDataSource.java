@@ -0,0 +1,103 @@
+package york.medical.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Wraps a DataSource so a listener sees every statement just before it is sent to the database
+// (a JDBC batch is one round trip), with its SQL and the parameters bound so far.
+public final class InterceptingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    // Parameters are keyed by their 1-based JDBC index
+    @FunctionalInterface
+    public interface StatementListener {
+        void beforeExecute(String sql, Map<Integer, Object> parameters) throws Exception;
+    }
+
+    private InterceptingDataSource() {
+    }
+
+    // Wraps the application DataSource when registered as a bean of a test configuration
+    public static BeanPostProcessor postProcessor(StatementListener listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? wrap(dataSource, listener) : bean;
+            }
+        };
+    }
+
+    public static DataSource wrap(DataSource dataSource, StatementListener listener) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrap(connection, listener) : result;
+        });
+    }
+
+    private static Connection wrap(Connection connection, StatementListener listener) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            if (result instanceof CallableStatement statement) {
+                return intercept(CallableStatement.class, statement, sql, listener);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return intercept(PreparedStatement.class, statement, sql, listener);
+            }
+            if (result instanceof Statement statement) {
+                return intercept(Statement.class, statement, sql, listener);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T intercept(Class<T> type, T statement, String preparedSql,
+                                                     StatementListener listener) {
+        Map<Integer, Object> parameters = new HashMap<>();
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : null;
+                listener.beforeExecute(sql, Collections.unmodifiableMap(new HashMap<>(parameters)));
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(InterceptingDataSource.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package york.medical.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Once enabled, delays every statement by a database round trip and counts whether it ran on a
+// platform or a virtual thread. Add it to a test context to wrap the application DataSource.
+@TestConfiguration
+public class JdbcLatency {
+
+    private final AtomicLong platformStatements = new AtomicLong();
+    private final AtomicLong virtualStatements = new AtomicLong();
+    private volatile long latencyMillis;
+
+    // Start delaying statements from now on, with fresh counters
+    public void enable(long latencyMillis) {
+        platformStatements.set(0);
+        virtualStatements.set(0);
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void disable() {
+        latencyMillis = 0;
+    }
+
+    public long platformStatements() {
+        return platformStatements.get();
+    }
+
+    public long virtualStatements() {
+        return virtualStatements.get();
+    }
+
+    @Bean
+    public static BeanPostProcessor jdbcLatencyDataSourcePostProcessor(JdbcLatency jdbcLatency) {
+        return InterceptingDataSource.postProcessor(jdbcLatency::delay);
+    }
+
+    private void delay(String sql, Map<Integer, Object> parameters) throws InterruptedException {
+        long delay = latencyMillis;
+        if (delay > 0) {
+            (Thread.currentThread().isVirtual() ? virtualStatements : platformStatements).incrementAndGet();
+            Thread.sleep(delay);
+        }
+    }
+}
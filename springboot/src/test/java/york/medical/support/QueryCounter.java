@@ -0,0 +1,50 @@
+package york.medical.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts the statements sent to the database (a JDBC batch counts as one round trip) and keeps their SQL
+// and bound parameters so a test can EXPLAIN them. Import it in a test to wrap the application DataSource.
+@TestConfiguration
+public class QueryCounter {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final List<CapturedStatement> captured = Collections.synchronizedList(new ArrayList<>());
+
+    // A statement as it was executed; parameters are keyed by their 1-based JDBC index
+    public record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    public void reset() {
+        statements.set(0);
+        captured.clear();
+    }
+
+    public long count() {
+        return statements.get();
+    }
+
+    // The statements executed since the last reset, in order
+    public List<CapturedStatement> statements() {
+        synchronized (captured) {
+            return List.copyOf(captured);
+        }
+    }
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(QueryCounter queryCounter) {
+        return InterceptingDataSource.postProcessor(queryCounter::record);
+    }
+
+    private void record(String sql, Map<Integer, Object> parameters) {
+        statements.incrementAndGet();
+        captured.add(new CapturedStatement(sql, parameters));
+    }
+}
@@ -0,0 +1,15 @@
+package york.medical.support;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+
+// Everything in york.medical.services, so a service test does not have to list its transitive dependencies
+@TestConfiguration
+@ComponentScan("york.medical.services")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({TestMetrics.class, QueryCounter.class, Fixtures.class})
+public class ServiceTestConfiguration {
+}
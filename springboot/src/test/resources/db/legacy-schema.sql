@@ -0,0 +1,15 @@
+-- The schema Hibernate generated from the original entities (ddl-auto=update) before the migrations existed
+create table specialty (specialty_id bigint generated by default as identity, created_at timestamp(6) not null, updated_at timestamp(6) not null, name varchar(255) not null, primary key (specialty_id));
+create table doctor (doctor_id bigint generated by default as identity, specialty_id bigint not null, created_at timestamp(6) not null, updated_at timestamp(6) not null, employment_status varchar(255) not null check (employment_status in ('ACTIVE','INACTIVE')), first_name varchar(255) not null, last_name varchar(255) not null, primary key (doctor_id));
+create table doctor_availability (availability_id bigint generated by default as identity, doctor_id bigint not null, end_time time(6) not null, start_time time(6) not null, created_at timestamp(6) not null, updated_at timestamp(6) not null, day_of_week varchar(255) not null check (day_of_week in ('MONDAY','TUESDAY','WEDNESDAY','THURSDAY','FRIDAY')), primary key (availability_id));
+create table auth (user_id bigint generated by default as identity, created_at timestamp(6) not null, updated_at timestamp(6) not null, okta_id varchar(255) not null unique, role varchar(255) not null check (role in ('PATIENT','ADMIN')), primary key (user_id));
+create table patient (dob date not null, patient_id bigint generated by default as identity, user_id bigint not null unique, created_at timestamp(6) not null, updated_at timestamp(6) not null, first_name varchar(255) not null, last_name varchar(255) not null, primary key (patient_id));
+create table appointment_slot (date date not null, end_time time(6) not null, start_time time(6) not null, doctor_id bigint not null, slot_id bigint generated by default as identity, created_at timestamp(6) not null, updated_at timestamp(6) not null, status varchar(255) not null check (status in ('AVAILABLE','RESERVED','PENDING')), primary key (slot_id));
+create table appointment (date date not null, appointment_id bigint generated by default as identity, doctor_id bigint not null, patient_id bigint not null, slot_id bigint unique, created_at timestamp(6) not null, updated_at timestamp(6) not null, status varchar(255) not null check (status in ('PENDING','CONFIRMED','AVAILABLE','CANCELLED')), visit_type varchar(255) not null check (visit_type in ('IN_PERSON','TELEHEALTH')), primary key (appointment_id));
+alter table if exists doctor add constraint FKdoctor_specialty foreign key (specialty_id) references specialty;
+alter table if exists doctor_availability add constraint FKavailability_doctor foreign key (doctor_id) references doctor;
+alter table if exists patient add constraint FKpatient_auth foreign key (user_id) references auth;
+alter table if exists appointment_slot add constraint FKslot_doctor foreign key (doctor_id) references doctor;
+alter table if exists appointment add constraint FKappointment_doctor foreign key (doctor_id) references doctor;
+alter table if exists appointment add constraint FKappointment_patient foreign key (patient_id) references patient;
+alter table if exists appointment add constraint FKappointment_slot foreign key (slot_id) references appointment_slot;